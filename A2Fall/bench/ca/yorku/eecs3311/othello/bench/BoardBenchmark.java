@@ -0,0 +1,101 @@
+package ca.yorku.eecs3311.othello.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.yorku.eecs3311.othello.model.CountTokensVisitor;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+import ca.yorku.eecs3311.othello.model.ValidMovesVisitor;
+
+/**
+ * The board operations, on both board implementations, each call on the next
+ * position of the Corpus.
+ *
+ * @author Helena
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+	@Param({ "bitboard", "array" })
+	public String board;
+
+	private OthelloBoard[] boards;
+	private char[] players;
+	// a legal move in each position, and the tokens it flips, to take it back
+	private int[] rows, cols;
+	private long[] flips;
+	private ValidMovesVisitor[] validMoves;
+	private CountTokensVisitor countTokens;
+	private int i;
+
+	@Setup
+	public void setUp() {
+		Corpus corpus = new Corpus();
+		this.boards = corpus.getBoards(this.board.equals("bitboard"));
+		this.players = corpus.getPlayers();
+		this.rows = new int[Corpus.SIZE];
+		this.cols = new int[Corpus.SIZE];
+		this.flips = new long[Corpus.SIZE];
+		for (int k = 0; k < Corpus.SIZE; k++) {
+			int square = Long.numberOfTrailingZeros(this.boards[k].getMoves(this.players[k]));
+			this.rows[k] = square / 8;
+			this.cols[k] = square % 8;
+			this.flips[k] = this.boards[k].getFlips(this.rows[k], this.cols[k], this.players[k]);
+		}
+		this.validMoves = new ValidMovesVisitor[] { new ValidMovesVisitor(OthelloBoard.P1),
+				new ValidMovesVisitor(OthelloBoard.P2) };
+		this.countTokens = new CountTokensVisitor(OthelloBoard.P1);
+	}
+
+	private int next() {
+		return this.i = (this.i + 1) & (Corpus.SIZE - 1);
+	}
+
+	/**
+	 * OthelloBoard.move, and undoMove to put the position back for the next
+	 * time round.
+	 */
+	@Benchmark
+	public boolean move() {
+		int k = this.next();
+		OthelloBoard board = this.boards[k];
+		boolean moved = board.move(this.rows[k], this.cols[k], this.players[k]);
+		board.undoMove(this.rows[k], this.cols[k], this.players[k], this.flips[k]);
+		return moved;
+	}
+
+	@Benchmark
+	public char hasMove() {
+		return this.boards[this.next()].hasMove();
+	}
+
+	@Benchmark
+	public int validMovesVisitor() {
+		int k = this.next();
+		ValidMovesVisitor visitor = this.validMoves[this.players[k] == OthelloBoard.P1 ? 0 : 1];
+		this.boards[k].accept(visitor);
+		return visitor.getValidMoves().size();
+	}
+
+	@Benchmark
+	public int countTokensVisitor() {
+		this.boards[this.next()].accept(this.countTokens);
+		return this.countTokens.getCount();
+	}
+}
@@ -0,0 +1,90 @@
+package ca.yorku.eecs3311.othello.bench;
+
+import java.util.Random;
+
+import ca.yorku.eecs3311.othello.model.MoveList;
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.OthelloBitBoard;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+
+/**
+ * The positions the benchmarks run on: SIZE games, each played with random
+ * moves from a fixed seed for a random number of moves, so every run, on
+ * every machine, measures the same positions, from the opening to the end of
+ * the game. None of them is over.
+ *
+ * @author Helena
+ *
+ */
+public class Corpus {
+	public static final int SIZE = 256; // a power of 2, so benchmarks can cycle with a mask
+	public static final long SEED = 3311;
+
+	private final Othello[] games = new Othello[SIZE];
+	// the moves of each game, as {row, col, player}
+	private final int[][][] moves = new int[SIZE][][];
+
+	public Corpus() {
+		Random rand = new Random(SEED);
+		MoveList legal = new MoveList();
+		for (int i = 0; i < SIZE; i++) {
+			Othello othello;
+			int[][] played;
+			do {
+				othello = new Othello();
+				int plies = rand.nextInt(60);
+				played = new int[plies][];
+				int n = 0;
+				while (n < plies && !othello.isGameOver()) {
+					othello.getMoves(legal);
+					int k = rand.nextInt(legal.size());
+					played[n++] = new int[] { legal.getRow(k), legal.getCol(k), othello.getWhosTurn() };
+					othello.move(legal.getRow(k), legal.getCol(k));
+				}
+			} while (othello.isGameOver());
+			this.games[i] = othello;
+			this.moves[i] = played;
+		}
+	}
+
+	/**
+	 *
+	 * @return copies of the positions, to be changed freely
+	 */
+	public Othello[] getGames() {
+		Othello[] copies = new Othello[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			copies[i] = this.games[i].copy();
+		}
+		return copies;
+	}
+
+	/**
+	 *
+	 * @param bitboard whether to build OthelloBitBoards or the array based
+	 *                 OthelloBoard
+	 * @return the positions as boards, built by replaying their moves
+	 */
+	public OthelloBoard[] getBoards(boolean bitboard) {
+		OthelloBoard[] boards = new OthelloBoard[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			boards[i] = bitboard ? new OthelloBitBoard() : new OthelloBoard(Othello.DIMENSION);
+			for (int[] move : this.moves[i]) {
+				boards[i].move(move[0], move[1], (char) move[2]);
+			}
+		}
+		return boards;
+	}
+
+	/**
+	 *
+	 * @return the player to move in each position
+	 */
+	public char[] getPlayers() {
+		char[] players = new char[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			players[i] = this.games[i].getWhosTurn();
+		}
+		return players;
+	}
+}
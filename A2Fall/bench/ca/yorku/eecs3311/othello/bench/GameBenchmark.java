@@ -0,0 +1,90 @@
+package ca.yorku.eecs3311.othello.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.yorku.eecs3311.othello.model.Move;
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+import ca.yorku.eecs3311.othello.model.Player;
+import ca.yorku.eecs3311.othello.model.PlayerGreedy;
+import ca.yorku.eecs3311.othello.model.PlayerRandom;
+
+/**
+ * Othello and the players: copying a game, choosing a move in each position
+ * of the Corpus, and playing a whole game between two PlayerRandom.
+ *
+ * @author Helena
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+	private Othello[] games;
+	private Player[] greedy, random;
+	private Random rand;
+	private int i;
+
+	@Setup
+	public void setUp() {
+		this.games = new Corpus().getGames();
+		this.greedy = new Player[Corpus.SIZE];
+		this.random = new Player[Corpus.SIZE];
+		this.rand = new Random(Corpus.SEED);
+		for (int k = 0; k < Corpus.SIZE; k++) {
+			char player = this.games[k].getWhosTurn();
+			this.greedy[k] = new PlayerGreedy(this.games[k], player);
+			this.random[k] = new PlayerRandom(this.games[k], player, this.rand);
+		}
+	}
+
+	private int next() {
+		return this.i = (this.i + 1) & (Corpus.SIZE - 1);
+	}
+
+	@Benchmark
+	public Othello copy() {
+		return this.games[this.next()].copy();
+	}
+
+	@Benchmark
+	public Move greedyGetMove() {
+		return this.greedy[this.next()].getMove();
+	}
+
+	@Benchmark
+	public Move randomGetMove() {
+		return this.random[this.next()].getMove();
+	}
+
+	/**
+	 * A whole game, from a new Othello, between two PlayerRandom.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public char randomGame() {
+		Othello othello = new Othello();
+		Player p1 = new PlayerRandom(othello, OthelloBoard.P1, this.rand);
+		Player p2 = new PlayerRandom(othello, OthelloBoard.P2, this.rand);
+		while (!othello.isGameOver()) {
+			Move move = (othello.getWhosTurn() == OthelloBoard.P1 ? p1 : p2).getMove();
+			othello.move(move.getRow(), move.getCol());
+		}
+		return othello.getWinner();
+	}
+}
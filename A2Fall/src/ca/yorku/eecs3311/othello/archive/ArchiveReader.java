@@ -0,0 +1,248 @@
+package ca.yorku.eecs3311.othello.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+
+/**
+ * Reads a GameArchive by memory mapping every segment, data and index, so a
+ * game is read straight from the page cache, with no copying or decoding
+ * beyond the bytes of its moves. Games can be read in any order by number,
+ * or all of them streamed in order, which reads the data files front to back
+ * and so runs at the speed of the disk. forEachParallel also streams them, on
+ * all cores.
+ *
+ * A reader sees the games that were in the archive when it was opened.
+ * Reading is thread safe: the buffers are only read with absolute gets.
+ *
+ * @author Helena
+ *
+ */
+public class ArchiveReader implements Closeable {
+	// games given to one task by forEachParallel
+	private static final int CHUNK_GAMES = 1 << 16;
+
+	/**
+	 * Receives the games of an archive.
+	 */
+	public interface GameConsumer {
+		/**
+		 *
+		 * @param game    the number of the game in the archive
+		 * @param squares the moves as row*8+col, only valid during the call
+		 * @param count   the number of moves
+		 */
+		void accept(long game, byte[] squares, int count);
+	}
+
+	private final MappedByteBuffer[] data;
+	private final LongBuffer[] index;
+	// firstGame[s] is the number of the first game of segment s, firstGame[segments] the size
+	private final long[] firstGame;
+
+	/**
+	 *
+	 * @param dir the archive
+	 * @throws IOException if dir is not an archive
+	 */
+	public ArchiveReader(Path dir) throws IOException {
+		int segments = GameArchive.getSegmentCount(dir);
+		this.data = new MappedByteBuffer[segments];
+		this.index = new LongBuffer[segments];
+		this.firstGame = new long[segments + 1];
+		for (int s = 0; s < segments; s++) {
+			// the index first: a writer writes the data first, so the data mapped
+			// after it holds every game it lists, even while games are appended
+			try (FileChannel channel = FileChannel.open(GameArchive.getIndex(dir, s), StandardOpenOption.READ)) {
+				long entries = channel.size() / 8;
+				this.index[s] = channel.map(FileChannel.MapMode.READ_ONLY, 0, entries * 8).asLongBuffer();
+			}
+			try (FileChannel channel = FileChannel.open(GameArchive.getData(dir, s), StandardOpenOption.READ)) {
+				this.data[s] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			if (this.data[s].limit() < GameArchive.HEADER_BYTES || this.data[s].getInt(0) != GameArchive.MAGIC)
+				throw new IOException(GameArchive.getData(dir, s) + " is not an archive segment");
+			if (this.data[s].getInt(4) != GameArchive.VERSION)
+				throw new IOException("unsupported archive version in " + GameArchive.getData(dir, s));
+			this.firstGame[s + 1] = this.firstGame[s] + this.index[s].limit();
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of games
+	 */
+	public long size() {
+		return this.firstGame[this.data.length];
+	}
+
+	/**
+	 * Read one game.
+	 *
+	 * @param game    in {0,...,size()-1}
+	 * @param squares at least 60 long, filled with the moves as row*8+col
+	 * @return the number of moves
+	 */
+	public int getMoves(long game, byte[] squares) {
+		if (game < 0 || game >= this.size())
+			throw new IndexOutOfBoundsException("game " + game + " of " + this.size());
+		int s = this.getSegment(game);
+		int offset = (int) this.index[s].get((int) (game - this.firstGame[s]));
+		return read(this.data[s], offset, squares);
+	}
+
+	/**
+	 *
+	 * @return the segment holding game, the last s with firstGame[s] <= game
+	 */
+	private int getSegment(long game) {
+		int low = 0, high = this.data.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (this.firstGame[middle] <= game)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Copy the moves of the record at offset into squares, with absolute gets
+	 * only, so that buffer can be shared between threads.
+	 *
+	 * @return the number of moves
+	 */
+	private static int read(ByteBuffer buffer, int offset, byte[] squares) {
+		int count = buffer.get(offset) & 0xFF;
+		for (int i = 0; i < count; i++) {
+			squares[i] = buffer.get(offset + 1 + i);
+		}
+		return count;
+	}
+
+	/**
+	 * Replay a game.
+	 *
+	 * @return the game after its moves
+	 * @throws IOException if a move is not legal
+	 */
+	public Othello getGame(long game) throws IOException {
+		byte[] squares = new byte[60];
+		int count = this.getMoves(game, squares);
+		Othello othello = new Othello();
+		for (int i = 0; i < count; i++) {
+			if (!othello.move(squares[i] / 8, squares[i] % 8))
+				throw new IOException("game " + game + " has an illegal move " + i);
+		}
+		return othello;
+	}
+
+	/**
+	 * Stream every game in order, segment by segment, reading the data files
+	 * front to back without the index.
+	 */
+	public void forEach(GameConsumer consumer) {
+		byte[] squares = new byte[256];
+		for (int s = 0; s < this.data.length; s++) {
+			ByteBuffer buffer = this.data[s];
+			int offset = GameArchive.HEADER_BYTES;
+			int games = this.index[s].limit();
+			for (int g = 0; g < games; g++) {
+				int count = read(buffer, offset, squares);
+				consumer.accept(this.firstGame[s] + g, squares, count);
+				offset += 1 + count;
+			}
+		}
+	}
+
+	/**
+	 * Stream every game on all cores, in chunks of consecutive games, each read
+	 * front to back. The games are not given in order, and consumer is called
+	 * from several threads at once.
+	 */
+	public void forEachParallel(GameConsumer consumer) {
+		int[] chunkSegment, chunkStart;
+		int chunks = 0;
+		for (int s = 0; s < this.data.length; s++) {
+			chunks += (this.index[s].limit() + CHUNK_GAMES - 1) / CHUNK_GAMES;
+		}
+		chunkSegment = new int[chunks];
+		chunkStart = new int[chunks];
+		for (int s = 0, c = 0; s < this.data.length; s++) {
+			for (int g = 0; g < this.index[s].limit(); g += CHUNK_GAMES, c++) {
+				chunkSegment[c] = s;
+				chunkStart[c] = g;
+			}
+		}
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int s = chunkSegment[c];
+			ByteBuffer buffer = this.data[s];
+			LongBuffer offsets = this.index[s];
+			int end = Math.min(offsets.limit(), chunkStart[c] + CHUNK_GAMES);
+			byte[] squares = new byte[256];
+			int offset = (int) offsets.get(chunkStart[c]);
+			for (int g = chunkStart[c]; g < end; g++) {
+				int count = read(buffer, offset, squares);
+				consumer.accept(this.firstGame[s] + g, squares, count);
+				offset += 1 + count;
+			}
+		});
+	}
+
+	/**
+	 * The mapped buffers are released when this is garbage collected.
+	 */
+	@Override
+	public void close() {
+		Arrays.fill(this.data, null);
+		Arrays.fill(this.index, null);
+	}
+
+	/**
+	 * Report the number of games, their average length and the share won by
+	 * each player, and how fast the archive was read.
+	 *
+	 * @param args the archive directory
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: ArchiveReader archive-dir");
+			System.exit(1);
+		}
+		try (ArchiveReader reader = new ArchiveReader(Paths.get(args[0]))) {
+			LongAdder moves = new LongAdder(), p1Wins = new LongAdder(), p2Wins = new LongAdder();
+			long start = System.nanoTime();
+			reader.forEachParallel((game, squares, count) -> {
+				Othello othello = new Othello();
+				for (int i = 0; i < count; i++) {
+					othello.makeMove(squares[i] / 8, squares[i] % 8);
+				}
+				moves.add(count);
+				char winner = othello.getWinner();
+				if (winner == OthelloBoard.P1)
+					p1Wins.increment();
+				else if (winner == OthelloBoard.P2)
+					p2Wins.increment();
+			});
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			long games = reader.size();
+			System.out.printf("%d games, %.1f moves per game, P1 wins %.4f, P2 wins %.4f, %d games/s%n", games,
+					games == 0 ? 0.0 : (double) moves.sum() / games, games == 0 ? 0.0 : (double) p1Wins.sum() / games,
+					games == 0 ? 0.0 : (double) p2Wins.sum() / games, games * 1000000000L / elapsed);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package ca.yorku.eecs3311.othello.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import ca.yorku.eecs3311.othello.training.GameLog;
+
+/**
+ * Appends games to a GameArchive. Any number of threads can append to the
+ * same writer: each game is copied into a buffer under a lock, which takes a
+ * few nanoseconds, and the buffers are written out to the segment files once
+ * full. A game's data is always written before its index entry, so the index
+ * never points past the data.
+ *
+ * Opening an existing archive continues its last segment. Anything past the
+ * last complete game, left by a writer that did not close, is cut off first,
+ * so a killed run loses at most the games still in its buffers.
+ *
+ * @author Helena
+ *
+ */
+public class ArchiveWriter implements Closeable {
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	private final Path dir;
+	private final long segmentBytes;
+	private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+	private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES / 8);
+
+	private int segment;
+	private FileChannel data, index;
+	private long dataBytes; // the size of the current data file, including what is buffered
+	private long games; // in the whole archive, including what is buffered
+
+	public ArchiveWriter(Path dir) throws IOException {
+		this(dir, GameArchive.DEFAULT_SEGMENT_BYTES);
+	}
+
+	/**
+	 *
+	 * @param dir          the archive, created if needed
+	 * @param segmentBytes the size at which a segment is full
+	 * @throws IOException
+	 */
+	public ArchiveWriter(Path dir, long segmentBytes) throws IOException {
+		if (segmentBytes < GameArchive.HEADER_BYTES + 61 || segmentBytes > GameArchive.MAX_SEGMENT_BYTES)
+			throw new IllegalArgumentException("bad segment size " + segmentBytes);
+		this.dir = dir;
+		this.segmentBytes = segmentBytes;
+		Files.createDirectories(dir);
+		int segments = GameArchive.getSegmentCount(dir);
+		for (int s = 0; s < segments - 1; s++) {
+			this.games += Files.size(GameArchive.getIndex(dir, s)) / 8;
+		}
+		this.open(Math.max(0, segments - 1));
+	}
+
+	/**
+	 * Open segment for appending, creating it or cutting off an incomplete end.
+	 */
+	private void open(int segment) throws IOException {
+		this.segment = segment;
+		this.data = FileChannel.open(GameArchive.getData(this.dir, segment), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.index = FileChannel.open(GameArchive.getIndex(this.dir, segment), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (this.data.size() < GameArchive.HEADER_BYTES) {
+			ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_BYTES);
+			header.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).flip();
+			this.data.truncate(0);
+			this.data.write(header, 0);
+			this.index.truncate(0);
+		}
+		long entries = this.index.size() / 8;
+		long end = GameArchive.HEADER_BYTES;
+		ByteBuffer read = ByteBuffer.allocate(8);
+		while (entries > 0) {
+			read.clear().limit(8);
+			this.index.read(read, (entries - 1) * 8);
+			long offset = read.flip().getLong();
+			read.clear().limit(1);
+			if (offset < this.data.size() && this.data.read(read, offset) == 1) {
+				long recordEnd = offset + 1 + (read.get(0) & 0xFF);
+				if (recordEnd <= this.data.size()) {
+					end = recordEnd;
+					break;
+				}
+			}
+			entries--; // its record was not all written
+		}
+		this.data.truncate(end);
+		this.index.truncate(entries * 8);
+		this.data.position(end);
+		this.index.position(entries * 8);
+		this.dataBytes = end;
+		this.games += entries;
+	}
+
+	/**
+	 * Append a game.
+	 *
+	 * @param squares the moves of the game as row*8+col, from the initial
+	 *                position
+	 * @param count   the number of moves
+	 * @return the number of the game in the archive, counting from 0
+	 * @throws IOException
+	 */
+	public synchronized long append(int[] squares, int count) throws IOException {
+		if (count > 60)
+			throw new IllegalArgumentException("a game has at most 60 moves");
+		if (this.dataBytes + 1 + count > this.segmentBytes) {
+			this.flush();
+			this.data.close();
+			this.index.close();
+			this.open(this.segment + 1);
+		}
+		if (this.dataBuffer.remaining() < 1 + count || !this.indexBuffer.hasRemaining())
+			this.flush();
+		this.indexBuffer.putLong(this.dataBytes);
+		this.dataBuffer.put((byte) count);
+		for (int i = 0; i < count; i++) {
+			this.dataBuffer.put((byte) squares[i]);
+		}
+		this.dataBytes += 1 + count;
+		return this.games++;
+	}
+
+	/**
+	 * Write out the buffered games, data first.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void flush() throws IOException {
+		write(this.dataBuffer, this.data);
+		write(this.indexBuffer, this.index);
+	}
+
+	private static void write(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 *
+	 * @return the number of games in the archive, including those buffered
+	 */
+	public synchronized long size() {
+		return this.games;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!this.data.isOpen())
+			return;
+		try {
+			this.flush();
+		} finally {
+			this.data.close();
+			this.index.close();
+		}
+	}
+
+	/**
+	 * Append the games of GameLog files to an archive.
+	 *
+	 * @param args the archive directory, then the log files
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: ArchiveWriter archive-dir log-file...");
+			System.exit(1);
+		}
+		long start = System.nanoTime(), added = 0;
+		try (ArchiveWriter writer = new ArchiveWriter(Paths.get(args[0]))) {
+			for (int i = 1; i < args.length; i++) {
+				try (GameLog log = new GameLog(Paths.get(args[i]))) {
+					int[] game;
+					while ((game = log.next()) != null) {
+						writer.append(game, game.length);
+						added++;
+					}
+					if (log.getSkipped() > 0)
+						System.err.println(args[i] + ": skipped " + log.getSkipped() + " bad lines");
+				}
+			}
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			System.out.println("added " + added + " games, " + writer.size() + " in the archive, "
+					+ added * 1000000000L / elapsed + " games/s");
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package ca.yorku.eecs3311.othello.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The layout of a game archive: a directory of segments, each a data file of
+ * games and a sidecar index file, written by ArchiveWriter and read by
+ * ArchiveReader.
+ *
+ * A data file starts with int MAGIC and int VERSION, followed by one record
+ * per game: a byte with the number of moves, then each move as its square
+ * row*8+col. Games start from the initial position and passes follow from the
+ * moves, as in GameLog. The index file holds a long per game, the offset of
+ * its record in the data file, so game n of a segment is found in constant
+ * time. Both are big endian, and only ever appended to. Once a data file
+ * reaches the segment size the next game starts a new segment, so each
+ * segment can be memory mapped whole.
+ *
+ * @author Helena
+ *
+ */
+public class GameArchive {
+	public static final int MAGIC = 0x4F544741; // "OTGA"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 8;
+
+	/**
+	 * The largest data file, so that one segment can be mapped as one buffer.
+	 */
+	public static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+	public static final long DEFAULT_SEGMENT_BYTES = 1L << 30;
+
+	private GameArchive() {
+	}
+
+	public static Path getData(Path dir, int segment) {
+		return dir.resolve(String.format("segment-%05d.games", segment));
+	}
+
+	public static Path getIndex(Path dir, int segment) {
+		return dir.resolve(String.format("segment-%05d.index", segment));
+	}
+
+	/**
+	 *
+	 * @return the number of segments in dir, which are numbered from 0
+	 * @throws IOException
+	 */
+	public static int getSegmentCount(Path dir) throws IOException {
+		List<Path> found = new ArrayList<>();
+		try (Stream<Path> files = Files.list(dir)) {
+			files.filter(file -> file.getFileName().toString().endsWith(".games")).forEach(found::add);
+		}
+		int count = 0;
+		while (Files.exists(getData(dir, count)))
+			count++;
+		if (count != found.size())
+			throw new IOException("archive " + dir + " is missing segment " + count);
+		return count;
+	}
+}
@@ -0,0 +1,244 @@
+package ca.yorku.eecs3311.othello.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.Symmetry;
+import ca.yorku.eecs3311.othello.training.GameLog;
+
+/**
+ * An index of the positions reached in the games of a GameArchive, written by
+ * PositionIndexBuilder. For each position it gives the games that passed
+ * through it, by their number in the archive, and how many of them P1 won,
+ * drew and P2 won. Positions are keyed by Symmetry.canonicalHash, so a
+ * position and its rotations and reflections share one entry.
+ *
+ * Like an OpeningBook, the index is one file of fixed size records sorted by
+ * key, which is memory mapped and binary searched, so a query reads a few
+ * pages whatever the size of the index. The records are followed by the game
+ * numbers of every position, one after the other.
+ *
+ * File layout, big endian:
+ * <pre>
+ * header:  int MAGIC, int VERSION, long number of records, long number of games listed
+ * record:  long key, long first game listed, int P1 wins, int draws, int P2 wins
+ * games:   long game number, in order for each record
+ * </pre>
+ *
+ * @author Helena
+ *
+ */
+public class PositionIndex implements Closeable {
+	public static final int MAGIC = 0x4F545049; // "OTPI"
+	public static final int VERSION = 2;
+	public static final int HEADER_BYTES = 24;
+	public static final int RECORD_BYTES = 28;
+
+	// a single mapping is limited to 2GB, so both parts are mapped in chunks
+	private static final int RECORD_CHUNK_BITS = 26, GAME_CHUNK_BITS = 27;
+
+	private final FileChannel channel;
+	private final ByteBuffer[] records, games;
+	private final long size, gameCount;
+
+	private PositionIndex(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("not a position index");
+		if (header.getInt(4) != VERSION)
+			throw new IOException("unsupported position index version " + header.getInt(4));
+		this.size = header.getLong(8);
+		this.gameCount = header.getLong(16);
+		long gamesStart = HEADER_BYTES + this.size * RECORD_BYTES;
+		if (gamesStart + this.gameCount * 8 > channel.size())
+			throw new IOException("position index is truncated");
+		this.records = map(channel, HEADER_BYTES, this.size, RECORD_BYTES, RECORD_CHUNK_BITS);
+		this.games = map(channel, gamesStart, this.gameCount, 8, GAME_CHUNK_BITS);
+	}
+
+	private static ByteBuffer[] map(FileChannel channel, long start, long count, int bytes, int chunkBits)
+			throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[(int) ((count + (1L << chunkBits) - 1) >>> chunkBits)];
+		for (int i = 0; i < chunks.length; i++) {
+			long first = (long) i << chunkBits;
+			long n = Math.min(1L << chunkBits, count - first);
+			chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + first * bytes, n * bytes);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Map the index in file into memory.
+	 *
+	 * @param file an index written by PositionIndexBuilder
+	 * @return the index, to be closed when no longer needed
+	 * @throws IOException if file can not be read or is not an index
+	 */
+	public static PositionIndex open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new PositionIndex(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 *
+	 * @param p1       mask of P1 tokens
+	 * @param p2       mask of P2 tokens
+	 * @param whosTurn P1, P2 or EMPTY
+	 * @return the key of the position in the index
+	 */
+	public static long key(long p1, long p2, char whosTurn) {
+		return Symmetry.canonicalHash(p1, p2, whosTurn);
+	}
+
+	/**
+	 *
+	 * @param key a position key
+	 * @return the index of the record for key, -1 if no game reached it
+	 */
+	public long find(long key) {
+		long lo = 0, hi = this.size - 1;
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long k = this.getKey(mid);
+			if (k < key)
+				lo = mid + 1;
+			else if (k > key)
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @return the index of the record for the position of game, or one
+	 *         symmetric to it, -1 if no game reached it
+	 */
+	public long find(Othello game) {
+		return this.find(game.getCanonicalHash());
+	}
+
+	private ByteBuffer record(long i) {
+		return this.records[(int) (i >>> RECORD_CHUNK_BITS)];
+	}
+
+	private int offset(long i) {
+		return (int) (i & ((1L << RECORD_CHUNK_BITS) - 1)) * RECORD_BYTES;
+	}
+
+	public long getKey(long i) {
+		return this.record(i).getLong(this.offset(i));
+	}
+
+	public int getP1Wins(long i) {
+		return this.record(i).getInt(this.offset(i) + 16);
+	}
+
+	public int getDraws(long i) {
+		return this.record(i).getInt(this.offset(i) + 20);
+	}
+
+	public int getP2Wins(long i) {
+		return this.record(i).getInt(this.offset(i) + 24);
+	}
+
+	/**
+	 *
+	 * @return the number of games that reached the position of record i
+	 */
+	public long getGameCount(long i) {
+		return (long) this.getP1Wins(i) + this.getDraws(i) + this.getP2Wins(i);
+	}
+
+	/**
+	 *
+	 * @param i a record
+	 * @param n in {0,...,getGameCount(i)-1}
+	 * @return the number in the archive of the n-th game, in order, that reached
+	 *         the position of record i
+	 */
+	public long getGame(long i, long n) {
+		if (n < 0 || n >= this.getGameCount(i))
+			throw new IndexOutOfBoundsException("game " + n + " of " + this.getGameCount(i));
+		long g = this.record(i).getLong(this.offset(i) + 8) + n;
+		return this.games[(int) (g >>> GAME_CHUNK_BITS)].getLong((int) (g & ((1L << GAME_CHUNK_BITS) - 1)) * 8);
+	}
+
+	/**
+	 *
+	 * @return the number of positions in the index
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 *
+	 * @return the number of games listed over all positions
+	 */
+	public long getListedGames() {
+		return this.gameCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	public String toString() {
+		return "PositionIndex " + this.size + " positions";
+	}
+
+	/**
+	 * Look up a position and print its results and the first of its games.
+	 *
+	 * @param args the index file, and the moves from the initial position that
+	 *             reach the position, as in a GameLog (default none)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: PositionIndex index-file [moves]");
+			System.exit(1);
+		}
+		int[] moves = GameLog.parse(args.length > 1 ? args[1] : "");
+		if (moves == null) {
+			System.err.println("not a legal sequence of moves: " + args[1]);
+			System.exit(1);
+		}
+		Othello othello = new Othello();
+		for (int square : moves) {
+			othello.move(square / 8, square % 8);
+		}
+		try (PositionIndex index = open(Paths.get(args[0]))) {
+			long start = System.nanoTime();
+			long i = index.find(othello);
+			long elapsed = System.nanoTime() - start;
+			if (i < 0) {
+				System.out.println("no game reached this position (" + elapsed / 1000 + " us)");
+				return;
+			}
+			long games = index.getGameCount(i);
+			System.out.printf("%d games: P1 won %d, drew %d, P2 won %d (%d us)%n", games, index.getP1Wins(i),
+					index.getDraws(i), index.getP2Wins(i), elapsed / 1000);
+			StringBuilder s = new StringBuilder("games:");
+			for (long n = 0; n < Math.min(games, 20); n++) {
+				s.append(' ').append(index.getGame(i, n));
+			}
+			System.out.println(games > 20 ? s + " ..." : s);
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package ca.yorku.eecs3311.othello.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.yorku.eecs3311.othello.model.OthelloBitBoard;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+
+/**
+ * Builds a PositionIndex from a GameArchive, with an external sort, so the
+ * archive can be far larger than memory.
+ *
+ * The games are replayed on all cores with ArchiveReader.forEachParallel, on
+ * bare bitboards. Each thread collects a (position key, game and result)
+ * entry per position reached in a buffer of its own, and when the buffer is
+ * full sorts it and writes it out as a run, so the threads never share
+ * anything. The runs are then merged, and the entries of each position are
+ * counted into its record as they go by. Only the runs and the merge buffers
+ * are ever in memory at once. The buffers are found by thread in a map that
+ * is emptied when the build ends, so none outlives it in the pool's threads.
+ *
+ * The result of a game is decided by the tokens after its last move, so a game
+ * that was not played to the end counts as won by the player who was ahead.
+ *
+ * @author Helena
+ *
+ */
+public class PositionIndexBuilder {
+	private static final int P1_WIN = 0, DRAW = 1, P2_WIN = 2;
+	private static final long INITIAL_P1, INITIAL_P2;
+
+	static {
+		OthelloBitBoard initial = new OthelloBitBoard();
+		INITIAL_P1 = initial.getTokens(OthelloBoard.P1);
+		INITIAL_P2 = initial.getTokens(OthelloBoard.P2);
+	}
+
+	private int runEntries = 1 << 20;
+	private int maxPly = 60;
+
+	private Path runDir;
+	private final AtomicInteger runCount = new AtomicInteger();
+	private final Map<Thread, Run> buffers = new ConcurrentHashMap<>();
+
+	/**
+	 *
+	 * @param runEntries the entries each thread sorts in memory before writing
+	 *                   them out, 32 bytes each
+	 */
+	public void setRunEntries(int runEntries) {
+		if (runEntries < 64)
+			throw new IllegalArgumentException("runEntries must be at least 64");
+		this.runEntries = runEntries;
+	}
+
+	/**
+	 *
+	 * @param maxPly index the positions after at most maxPly moves of each game,
+	 *               for an index of openings only
+	 */
+	public void setMaxPly(int maxPly) {
+		if (maxPly < 0)
+			throw new IllegalArgumentException("maxPly can not be negative");
+		this.maxPly = maxPly;
+	}
+
+	/**
+	 * Index every game of archive.
+	 *
+	 * @param archive the games to index
+	 * @param file    where to write the index
+	 * @return the number of positions in the index
+	 * @throws IOException
+	 */
+	public long build(ArchiveReader archive, Path file) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		this.runDir = Files.createTempDirectory(parent, "runs");
+		this.runCount.set(0);
+		this.buffers.clear();
+		try {
+			try {
+				archive.forEachParallel(this::add);
+				this.buffers.values().parallelStream().forEach(Run::flush);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return this.merge(file);
+		} finally {
+			this.buffers.clear();
+			try (DirectoryStream<Path> runs = Files.newDirectoryStream(this.runDir)) {
+				for (Path run : runs) {
+					Files.delete(run);
+				}
+			}
+			Files.delete(this.runDir);
+		}
+	}
+
+	/**
+	 * Replay a game and add an entry for each position it reached.
+	 */
+	private void add(long game, byte[] squares, int count) {
+		long[] keys = new long[61];
+		long p1 = INITIAL_P1, p2 = INITIAL_P2;
+		char turn = OthelloBoard.P1;
+		int positions = 0;
+		keys[positions++] = PositionIndex.key(p1, p2, turn);
+		for (int i = 0; i < count; i++) {
+			long move = 1L << squares[i];
+			if (turn == OthelloBoard.P1) {
+				long flips = OthelloBitBoard.flips(squares[i], p1, p2);
+				p1 |= flips | move;
+				p2 &= ~flips;
+			} else {
+				long flips = OthelloBitBoard.flips(squares[i], p2, p1);
+				p2 |= flips | move;
+				p1 &= ~flips;
+			}
+			// the other player moves next, unless they must pass
+			long own = turn == OthelloBoard.P1 ? p1 : p2, opp = turn == OthelloBoard.P1 ? p2 : p1;
+			if (OthelloBitBoard.moves(opp, own) != 0)
+				turn = OthelloBoard.otherPlayer(turn);
+			else if (OthelloBitBoard.moves(own, opp) == 0)
+				turn = OthelloBoard.EMPTY;
+			if (i < this.maxPly)
+				keys[positions++] = PositionIndex.key(p1, p2, turn);
+		}
+		int p1Count = Long.bitCount(p1), p2Count = Long.bitCount(p2);
+		int result = p1Count > p2Count ? P1_WIN : p1Count < p2Count ? P2_WIN : DRAW;
+		Run run = this.buffers.computeIfAbsent(Thread.currentThread(), thread -> new Run(this.runEntries));
+		for (int i = 0; i < positions; i++) {
+			run.add(keys[i], game << 2 | result);
+		}
+	}
+
+	/**
+	 * The entries collected by one thread, sorted by key and then game.
+	 */
+	private class Run {
+		private final long[] keys, values, keyBuffer, valueBuffer;
+		private int size = 0;
+
+		Run(int entries) {
+			this.keys = new long[entries];
+			this.values = new long[entries];
+			this.keyBuffer = new long[entries];
+			this.valueBuffer = new long[entries];
+		}
+
+		void add(long key, long value) {
+			if (this.size == this.keys.length)
+				this.flush();
+			this.keys[this.size] = key;
+			this.values[this.size] = value;
+			this.size++;
+		}
+
+		/**
+		 * Sort the entries and write them out as a run file.
+		 */
+		void flush() {
+			if (this.size == 0)
+				return;
+			this.sort(0, this.size);
+			Path file = PositionIndexBuilder.this.runDir
+					.resolve("run-" + PositionIndexBuilder.this.runCount.getAndIncrement());
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+				for (int i = 0; i < this.size; i++) {
+					out.writeLong(this.keys[i]);
+					out.writeLong(this.values[i]);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			this.size = 0;
+		}
+
+		private boolean before(long key1, long value1, long key2, long value2) {
+			return key1 < key2 || (key1 == key2 && value1 <= value2);
+		}
+
+		private void sort(int from, int to) {
+			if (to - from < 2)
+				return;
+			int mid = (from + to) >>> 1;
+			this.sort(from, mid);
+			this.sort(mid, to);
+			if (this.before(this.keys[mid - 1], this.values[mid - 1], this.keys[mid], this.values[mid]))
+				return; // already in order
+			System.arraycopy(this.keys, from, this.keyBuffer, from, to - from);
+			System.arraycopy(this.values, from, this.valueBuffer, from, to - from);
+			int i = from, j = mid;
+			for (int k = from; k < to; k++) {
+				if (j >= to || (i < mid && this.before(this.keyBuffer[i], this.valueBuffer[i], this.keyBuffer[j],
+						this.valueBuffer[j]))) {
+					this.keys[k] = this.keyBuffer[i];
+					this.values[k] = this.valueBuffer[i++];
+				} else {
+					this.keys[k] = this.keyBuffer[j];
+					this.values[k] = this.valueBuffer[j++];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a run file one entry at a time.
+	 */
+	private static class RunReader {
+		private final DataInputStream in;
+		long key, value;
+
+		RunReader(Path file) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+		}
+
+		/**
+		 *
+		 * @return whether there was another entry, which is now in key and value
+		 */
+		boolean next() throws IOException {
+			try {
+				this.key = this.in.readLong();
+				this.value = this.in.readLong();
+				return true;
+			} catch (EOFException e) {
+				this.in.close();
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Merge the runs into the index: the records go straight to file, the game
+	 * numbers to a temporary file that is appended after them.
+	 *
+	 * @return the number of records
+	 */
+	private long merge(Path file) throws IOException {
+		PriorityQueue<RunReader> queue = new PriorityQueue<>(
+				(a, b) -> a.key != b.key ? Long.compare(a.key, b.key) : Long.compare(a.value, b.value));
+		for (int r = 0; r < this.runCount.get(); r++) {
+			RunReader reader = new RunReader(this.runDir.resolve("run-" + r));
+			if (reader.next())
+				queue.add(reader);
+		}
+		Path gameFile = this.runDir.resolve("games");
+		long records = 0, listed = 0;
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+				DataOutputStream games = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(gameFile), 1 << 16))) {
+			out.write(new byte[PositionIndex.HEADER_BYTES]); // written once the counts are known
+			while (!queue.isEmpty()) {
+				long key = queue.peek().key, first = listed;
+				int[] results = new int[3];
+				while (!queue.isEmpty() && queue.peek().key == key) {
+					RunReader reader = queue.poll();
+					results[(int) (reader.value & 3)]++;
+					games.writeLong(reader.value >>> 2);
+					listed++;
+					if (reader.next())
+						queue.add(reader);
+				}
+				out.writeLong(key);
+				out.writeLong(first);
+				out.writeInt(results[P1_WIN]);
+				out.writeInt(results[DRAW]);
+				out.writeInt(results[P2_WIN]);
+				records++;
+			}
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				FileChannel games = FileChannel.open(gameFile, StandardOpenOption.READ)) {
+			channel.position(channel.size());
+			for (long done = 0; done < games.size();) {
+				done += games.transferTo(done, games.size() - done, channel);
+			}
+			ByteBuffer header = ByteBuffer.allocate(PositionIndex.HEADER_BYTES);
+			header.putInt(PositionIndex.MAGIC).putInt(PositionIndex.VERSION).putLong(records).putLong(listed).flip();
+			channel.write(header, 0);
+		}
+		return records;
+	}
+
+	/**
+	 * Build the index of an archive.
+	 *
+	 * @param args the archive directory, the index file, and the most moves of
+	 *             each game to index (default 60)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: PositionIndexBuilder archive-dir index-file [max-ply]");
+			System.exit(1);
+		}
+		PositionIndexBuilder builder = new PositionIndexBuilder();
+		if (args.length > 2)
+			builder.setMaxPly(Integer.parseInt(args[2]));
+		long start = System.currentTimeMillis();
+		try (ArchiveReader archive = new ArchiveReader(Paths.get(args[0]))) {
+			long positions = builder.build(archive, Paths.get(args[1]));
+			System.out.println("indexed " + archive.size() + " games, " + positions + " positions, in "
+					+ (System.currentTimeMillis() - start) + " ms");
+		}
+	}
+}
@@ -1,53 +1,261 @@
 package ca.yorku.eecs3311.othello.command;
 
 import java.io.Serializable;
-import java.util.Stack;
+
+import ca.yorku.eecs3311.othello.model.OthelloBitBoard;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
 
 /**
  * A class to manage the history of moves for undo and redo functionality.
+ * This is the one record of a game: Othello undoes and redoes moves through
+ * it, saves and loads it, and replays it to reach any earlier position.
+ *
+ * Moves are executed as MoveCommands, but only the change each one made is
+ * kept, not the command or a copy of the game: the square moved to together
+ * with the player who moved, packed in one byte, and the mask of flipped
+ * tokens. Undo and redo replay that change on the board in O(flips).
+ *
+ * The history grows as needed, or, given a capacity, keeps only the most
+ * recent moves in a ring buffer, so long running sessions use bounded memory.
+ * The position before the oldest move kept is remembered, so the moves kept
+ * can always be replayed.
  */
-public class GameHistory implements Serializable{
-    private final Stack<Command> undoStack;
-    private final Stack<Command> redoStack;
+public class GameHistory implements Serializable {
+    private static final int P2_MOVED = 0x40; // set in a move byte if P2 moved, square in the low 6 bits
+
+    private final int capacity; // 0 for unbounded
+    private byte[] moves = new byte[0];
+    private long[] flips = new long[0];
+    private int first = 0; // index in moves of the oldest move kept
+    private int undoCount = 0; // number of moves that can be undone
+    private int redoCount = 0; // number of undone moves after those that can be redone
+
+    private OthelloBoard start = null; // position before the oldest move kept, null for the initial position
+    private char startTurn = OthelloBoard.P1;
+    private int startMoves = 0; // number of moves made before start
 
     /**
-     * Constructs a new GameHistory.
+     * Constructs a new GameHistory that keeps every move.
      */
     public GameHistory() {
-        undoStack = new Stack<>();
-        redoStack = new Stack<>();
+        this(0);
+    }
+
+    /**
+     * Constructs a new GameHistory that keeps at most capacity moves, the oldest
+     * are forgotten first.
+     *
+     * @param capacity the maximum number of moves kept, 0 for no limit.
+     */
+    public GameHistory(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity must not be negative");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Executes a move and, if it was legal, adds it to the history. Moves that
+     * were undone can no longer be redone.
+     *
+     * @param command the move to execute.
+     * @return whether the move was legal.
+     */
+    public boolean executeCommand(MoveCommand command) {
+        command.execute();
+        if (!command.isValid())
+            return false;
+        this.record(command.getRow() * 8 + command.getCol(), command.getFlips(), command.getPlayer());
+        return true;
+    }
+
+    /**
+     * Undoes the last move on board, if possible.
+     *
+     * @param board the board the move was made on.
+     * @return the undone move, null if there is nothing to undo.
+     */
+    public MoveCommand undo(OthelloBoard board) {
+        if (this.undoCount == 0)
+            return null;
+        MoveCommand command = this.getCommand(board, this.undoCount - 1);
+        command.undo();
+        this.undoCount--;
+        this.redoCount++;
+        return command;
     }
 
     /**
-     * Executes a command and adds it to the undo stack.
+     * Redoes the last undone move on board, if possible.
      *
-     * @param command the command to execute.
+     * @param board the board the move was undone on.
+     * @return the redone move, null if there is nothing to redo.
      */
-    public void executeCommand(Command command) {
+    public MoveCommand redo(OthelloBoard board) {
+        if (this.redoCount == 0)
+            return null;
+        MoveCommand command = this.getCommand(board, this.undoCount);
         command.execute();
-        undoStack.push(command);
-        redoStack.clear(); // Clear the redo stack when a new command is executed
+        this.undoCount++;
+        this.redoCount--;
+        return command;
     }
 
     /**
-     * Undoes the last command, if possible.
+     * Forgets all moves, the game starts over from the initial position.
      */
-    public void undo() {
-        if (!undoStack.isEmpty()) {
-            Command command = undoStack.pop();
-            command.undo();
-            redoStack.push(command);
+    public void clear() {
+        this.first = this.undoCount = this.redoCount = 0;
+        this.start = null;
+        this.startTurn = OthelloBoard.P1;
+        this.startMoves = 0;
+    }
+
+    /**
+     * Forgets all moves, the game continues from position start.
+     *
+     * @param start      the current position, it is copied.
+     * @param startTurn  who moves next.
+     * @param startMoves the number of moves made to reach start.
+     */
+    public void clear(OthelloBoard start, char startTurn, int startMoves) {
+        this.clear();
+        this.start = start.copy();
+        this.startTurn = startTurn;
+        this.startMoves = startMoves;
+    }
+
+    /**
+     * @return the number of moves that can be undone.
+     */
+    public int getUndoCount() {
+        return this.undoCount;
+    }
+
+    /**
+     * @return the number of moves that can be redone.
+     */
+    public int getRedoCount() {
+        return this.redoCount;
+    }
+
+    /**
+     * @return the number of moves kept, both those that can be undone and those
+     *         that can be redone.
+     */
+    public int size() {
+        return this.undoCount + this.redoCount;
+    }
+
+    /**
+     * @param board the board to make the move on.
+     * @param n     counts moves from the oldest kept, in {0,...,size()-1}.
+     * @return move n as a command on board, already executed.
+     */
+    public MoveCommand getCommand(OthelloBoard board, int n) {
+        int i = this.index(n);
+        int square = this.moves[i] & 0x3F;
+        char player = (this.moves[i] & P2_MOVED) != 0 ? OthelloBoard.P2 : OthelloBoard.P1;
+        return new MoveCommand(board, square / 8, square % 8, player, this.flips[i]);
+    }
+
+    /**
+     * @param n counts moves from the oldest kept, in {0,...,size()-1}.
+     * @return the square row*8+col of move n.
+     */
+    public int getSquare(int n) {
+        return this.moves[this.index(n)] & 0x3F;
+    }
+
+    /**
+     * @param n counts moves from the oldest kept, in {0,...,size()-1}.
+     * @return the player who made move n.
+     */
+    public char getPlayer(int n) {
+        return (this.moves[this.index(n)] & P2_MOVED) != 0 ? OthelloBoard.P2 : OthelloBoard.P1;
+    }
+
+    /**
+     * @return a copy of the position before the oldest move kept.
+     */
+    public OthelloBoard getStart() {
+        return this.start == null ? new OthelloBitBoard() : this.start.copy();
+    }
+
+    /**
+     * @return who moves next in the position returned by getStart().
+     */
+    public char getStartTurn() {
+        if (this.size() > 0)
+            return this.getCommand(null, 0).getPlayer(); // whoever made the oldest move kept
+        return this.startTurn;
+    }
+
+    /**
+     * @return the number of moves made before the position returned by getStart().
+     */
+    public int getStartMoves() {
+        return this.startMoves;
+    }
+
+    /**
+     * Makes every move kept redoable, as if they had all been undone, without
+     * touching any board. Used to replay the history from getStart().
+     *
+     * @return the number of moves that could be undone before.
+     */
+    public int rewind() {
+        int undone = this.undoCount;
+        this.redoCount += this.undoCount;
+        this.undoCount = 0;
+        return undone;
+    }
+
+    private void record(int square, long flips, char player) {
+        this.redoCount = 0;
+        if (this.undoCount == this.moves.length) {
+            if (this.capacity > 0 && this.undoCount == this.capacity) {
+                this.forgetOldest();
+            } else {
+                this.grow();
+            }
         }
+        int i = this.index(this.undoCount++);
+        this.moves[i] = (byte) (square | (player == OthelloBoard.P2 ? P2_MOVED : 0));
+        this.flips[i] = flips;
     }
 
     /**
-     * Redoes the last undone command, if possible.
+     * Move start past the oldest move kept, and drop that move.
      */
-    public void redo() {
-        if (!redoStack.isEmpty()) {
-            Command command = redoStack.pop();
-            command.execute();
-            undoStack.push(command);
+    private void forgetOldest() {
+        if (this.start == null)
+            this.start = new OthelloBitBoard();
+        this.getCommand(this.start, 0).execute();
+        this.startMoves++;
+        this.first = (this.first + 1) % this.moves.length;
+        this.undoCount--;
+    }
+
+    /**
+     * @param n counts moves from the oldest kept, 0 is the oldest.
+     * @return the position of move n in the arrays.
+     */
+    private int index(int n) {
+        return (this.first + n) % this.moves.length;
+    }
+
+    private void grow() {
+        int length = Math.max(64, this.moves.length * 2);
+        if (this.capacity > 0)
+            length = Math.min(length, this.capacity);
+        byte[] newMoves = new byte[length];
+        long[] newFlips = new long[length];
+        for (int n = 0; n < this.undoCount; n++) {
+            newMoves[n] = this.moves[this.index(n)];
+            newFlips[n] = this.flips[this.index(n)];
         }
+        this.moves = newMoves;
+        this.flips = newFlips;
+        this.first = 0;
     }
 }
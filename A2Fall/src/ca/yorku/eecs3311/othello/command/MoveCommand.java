@@ -4,12 +4,15 @@ import ca.yorku.eecs3311.othello.model.OthelloBoard;
 
 /**
  * A command to execute and undo a player's move on the Othello board.
+ * Executing the command records the tokens it flipped, so undo restores the
+ * board exactly, touching only the square moved to and the flipped tokens.
  */
 public class MoveCommand implements Command {
     private final OthelloBoard board;
     private final int row;
     private final int col;
     private final char player;
+    private long flips; // tokens flipped by the last execute, 0 if the move was not legal
 
     /**
      * Constructs a new MoveCommand.
@@ -20,19 +23,57 @@ public class MoveCommand implements Command {
      * @param player the player making the move.
      */
     public MoveCommand(OthelloBoard board, int row, int col, char player) {
+        this(board, row, col, player, 0);
+    }
+
+    /**
+     * Constructs a MoveCommand for a move that was already made on board, for
+     * example one recorded in a GameHistory, so it can be undone.
+     *
+     * @param flips the tokens the move flipped.
+     */
+    MoveCommand(OthelloBoard board, int row, int col, char player, long flips) {
         this.board = board;
         this.row = row;
         this.col = col;
         this.player = player;
+        this.flips = flips;
     }
 
     @Override
     public void execute() {
-        board.move(row, col, player); // Executes the move
+        this.flips = board.makeMove(row, col, player); // Executes the move, remembering the flips
     }
 
     @Override
     public void undo() {
-        board.removeToken(row, col); // Removes the token to undo the move
+        if (this.flips != 0)
+            board.undoMove(row, col, player, flips); // Removes the token and unflips the captured ones
+    }
+
+    /**
+     * @return whether the last execute made a legal move.
+     */
+    public boolean isValid() {
+        return this.flips != 0;
+    }
+
+    /**
+     * @return the mask of tokens flipped, bit row*8+col for (row,col).
+     */
+    public long getFlips() {
+        return this.flips;
+    }
+
+    public int getRow() {
+        return this.row;
+    }
+
+    public int getCol() {
+        return this.col;
+    }
+
+    public char getPlayer() {
+        return this.player;
     }
 }
@@ -0,0 +1,406 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Negamax search with alpha-beta pruning and iterative deepening. The search
+ * is run on a copy of the game, trying each move with makeMove and taking it
+ * back with undoMove, so no positions are allocated while searching. Results
+ * are kept in a TranspositionTable, which also supplies the best move from the
+ * previous iteration to search first.
+ *
+ * The search deepens one ply at a time until the time or node budget runs out,
+ * and the best move of the deepest completed iteration is the result. After a
+ * search, the depth reached, the nodes searched and the nodes per second can
+ * be read back for tuning.
+ *
+ * With more than one thread (setThreads), the search is a Lazy SMP search:
+ * helper threads search the same position at the same time, each on its own
+ * copy of the game, and share what they find through the table, which the
+ * main thread then hits instead of searching those positions itself. Helpers
+ * on odd threads start one ply deeper, so the threads spread over different
+ * parts of the tree. The move played is always the main thread's. With one
+ * thread no helpers are started, and the search is deterministic: the same
+ * position with an empty table always gives the same move, score and nodes.
+ *
+ * Scores are from the point of view of the player to move. Positions at the
+ * end of the lines searched are scored by an Evaluator, HeuristicEvaluator
+ * unless another is set. A finished game scores WIN plus the disc difference,
+ * which is always beyond any evaluation of an unfinished game.
+ *
+ * @author Helena
+ *
+ */
+public class AlphaBetaSearch {
+	public static final int WIN = 16000;
+	public static final int INFINITY = 32000;
+	// evaluations are clipped to this, to stay clear of the scores of finished games
+	public static final int EVAL_LIMIT = WIN - 1000;
+
+	private static final long CORNERS = 0x8100000000000081L;
+	private static final long X_SQUARES = 0x0042000000004200L;
+	private static final long C_SQUARES = 0x4281000000008142L;
+
+	/**
+	 * Thrown to unwind the search when the budget runs out.
+	 */
+	private static class OutOfBudget extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		OutOfBudget() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final OutOfBudget OUT_OF_BUDGET = new OutOfBudget();
+
+	private final TranspositionTable table;
+	private Evaluator evaluator = new HeuristicEvaluator();
+	private AlphaBetaSearch[] helpers = new AlphaBetaSearch[0];
+	private ExecutorService pool;
+	private volatile boolean stopped;
+
+	private long deadline, nodeLimit;
+	private long nodes, totalNodes;
+	private int depthReached, bestMove, rootMove, score;
+	private long elapsedNanos;
+
+	/**
+	 *
+	 * @param table where search results are kept between searches
+	 */
+	public AlphaBetaSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * 
+	 * @param evaluator scores the positions at the end of the lines searched,
+	 *                  HeuristicEvaluator by default
+	 */
+	public void setEvaluator(Evaluator evaluator) {
+		this.evaluator = evaluator;
+		for (AlphaBetaSearch helper : this.helpers) {
+			helper.evaluator = evaluator.copy();
+		}
+	}
+
+	public Evaluator getEvaluator() {
+		return this.evaluator;
+	}
+
+	/**
+	 * Use threads threads to search, the main thread and threads-1 helpers. The
+	 * helper threads are kept between searches.
+	 *
+	 * @param threads the number of threads, at least 1
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		this.helpers = new AlphaBetaSearch[threads - 1];
+		for (int i = 0; i < this.helpers.length; i++) {
+			this.helpers[i] = new AlphaBetaSearch(this.table);
+			this.helpers[i].evaluator = this.evaluator.copy();
+		}
+		if (threads > 1) {
+			this.pool = Executors.newFixedThreadPool(threads - 1, r -> {
+				Thread thread = new Thread(r, "AlphaBetaSearch helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	public int getThreads() {
+		return this.helpers.length + 1;
+	}
+
+	/**
+	 * Search game, deepening until maxDepth is completed or the budget runs out.
+	 * At least depth 1 is always completed.
+	 *
+	 * @param game        the position to search, it is not changed
+	 * @param timeMillis  the wall clock budget
+	 * @param nodeLimit   the node budget of the main thread
+	 * @param maxDepth    the deepest iteration
+	 * @return the best move as row*8+col, -1 if the player to move has no move
+	 */
+	public int search(Othello game, long timeMillis, long nodeLimit, int maxDepth) {
+		long start = System.nanoTime();
+		this.deadline = start + timeMillis * 1000000;
+		this.nodeLimit = nodeLimit;
+		this.stopped = false;
+		// a search that runs out of budget is abandoned part way through a line,
+		// so each thread works on a copy
+		Future<?>[] running = new Future<?>[this.helpers.length];
+		if (game.getMoves() != 0) {
+			for (int i = 0; i < this.helpers.length; i++) {
+				AlphaBetaSearch helper = this.helpers[i];
+				Othello copy = game.copy();
+				int firstDepth = 1 + (i + 1) % 2;
+				helper.stopped = false;
+				helper.deadline = start + Long.MAX_VALUE / 2;
+				helper.nodeLimit = Long.MAX_VALUE;
+				running[i] = this.pool.submit(() -> helper.iterate(copy, firstDepth, maxDepth));
+			}
+		}
+		this.iterate(game.copy(), 1, maxDepth);
+		this.totalNodes = this.nodes;
+		for (int i = 0; i < running.length; i++) {
+			this.helpers[i].stopped = true;
+		}
+		for (int i = 0; i < running.length; i++) {
+			if (running[i] == null)
+				continue;
+			try {
+				running[i].get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+			this.totalNodes += this.helpers[i].nodes;
+		}
+		this.elapsedNanos = System.nanoTime() - start;
+		return this.bestMove;
+	}
+
+	/**
+	 * Deepen from firstDepth until maxDepth is completed, the game is solved or
+	 * the budget runs out.
+	 */
+	private void iterate(Othello game, int firstDepth, int maxDepth) {
+		this.nodes = 0;
+		this.depthReached = 0;
+		this.bestMove = -1;
+		this.score = 0;
+		if (game.getMoves() == 0)
+			return;
+		this.evaluator.setPosition(game);
+		for (int depth = firstDepth; depth <= maxDepth; depth++) {
+			try {
+				this.score = this.searchRoot(game, depth);
+			} catch (OutOfBudget e) {
+				break;
+			}
+			this.depthReached = depth;
+			this.bestMove = this.rootMove;
+			if (depth >= game.getCount(OthelloBoard.EMPTY))
+				break; // every line reached the end of the game, it is solved
+		}
+	}
+
+	private int searchRoot(Othello game, int depth) {
+		int alpha = -INFINITY, beta = INFINITY;
+		char side = game.getWhosTurn();
+		int best = -INFINITY, bestMove = -1;
+		long moves = game.getMoves();
+		// the best move of the previous iteration goes first
+		for (int stage = 0; stage < 4; stage++) {
+			for (long m = stageMoves(moves, stage, this.bestMove); m != 0; m &= m - 1) {
+				int square = Long.numberOfTrailingZeros(m);
+				int value = this.child(game, square, side, depth, alpha, beta);
+				if (value > best) {
+					best = value;
+					bestMove = square;
+					if (value > alpha)
+						alpha = value;
+				}
+			}
+		}
+		this.table.store(game.getHash(), depth, TranspositionTable.EXACT, best, bestMove);
+		this.rootMove = bestMove;
+		return best;
+	}
+
+	/**
+	 *
+	 * @return the score of game for the player to move
+	 */
+	private int negamax(Othello game, int depth, int alpha, int beta) {
+		if ((++this.nodes & 1023) == 0 && this.isOutOfBudget())
+			throw OUT_OF_BUDGET;
+		char side = game.getWhosTurn();
+		if (depth == 0)
+			return Math.max(-EVAL_LIMIT, Math.min(EVAL_LIMIT, this.evaluator.evaluate(game, side)));
+
+		long hash = game.getHash();
+		long entry = this.table.probe(hash);
+		int ttMove = -1;
+		if (entry != TranspositionTable.MISS) {
+			ttMove = TranspositionTable.getMove(entry);
+			if (TranspositionTable.getDepth(entry) >= depth) {
+				int ttScore = TranspositionTable.getScore(entry);
+				int bound = TranspositionTable.getBound(entry);
+				if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && ttScore >= beta)
+						|| (bound == TranspositionTable.UPPER && ttScore <= alpha))
+					return ttScore;
+			}
+		}
+
+		int alphaOriginal = alpha;
+		int best = -INFINITY, bestMove = -1;
+		long moves = game.getMoves();
+		for (int stage = 0; stage < 4 && alpha < beta; stage++) {
+			for (long m = stageMoves(moves, stage, ttMove); m != 0 && alpha < beta; m &= m - 1) {
+				int square = Long.numberOfTrailingZeros(m);
+				int value = this.child(game, square, side, depth, alpha, beta);
+				if (value > best) {
+					best = value;
+					bestMove = square;
+					if (value > alpha)
+						alpha = value;
+				}
+			}
+		}
+		int bound = best <= alphaOriginal ? TranspositionTable.UPPER
+				: best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+		this.table.store(hash, depth, bound, best, bestMove);
+		return best;
+	}
+
+	private boolean isOutOfBudget() {
+		return this.stopped || (this.depthReached > 0
+				&& (this.nodes >= this.nodeLimit || System.nanoTime() - this.deadline > 0));
+	}
+
+	/**
+	 * Make the move to square, search the position after it and take it back.
+	 *
+	 * @return the score after the move for side, who made it
+	 */
+	private int child(Othello game, int square, char side, int depth, int alpha, int beta) {
+		long flips = game.makeMove(square / 8, square % 8);
+		this.evaluator.move(square, flips, side);
+		char next = game.getWhosTurn();
+		int value;
+		if (next == OthelloBoard.EMPTY)
+			value = finalScore(game, side);
+		else if (next == side) // the opponent has to pass
+			value = this.negamax(game, depth - 1, alpha, beta);
+		else
+			value = -this.negamax(game, depth - 1, -beta, -alpha);
+		game.undoMove(square / 8, square % 8, flips, side);
+		this.evaluator.undoMove(square, flips, side);
+		return value;
+	}
+
+	/**
+	 * Moves are tried in stages: the move from the transposition table, then
+	 * corners, then ordinary squares, and last the squares next to corners.
+	 */
+	private static long stageMoves(long moves, int stage, int ttMove) {
+		long tt = ttMove < 0 ? 0 : (1L << ttMove) & moves;
+		switch (stage) {
+		case 0:
+			return tt;
+		case 1:
+			return moves & CORNERS & ~tt;
+		case 2:
+			return moves & ~(CORNERS | X_SQUARES | C_SQUARES) & ~tt;
+		default:
+			return moves & (X_SQUARES | C_SQUARES) & ~tt;
+		}
+	}
+
+	/**
+	 *
+	 * @return the score of a finished game for side
+	 */
+	static int finalScore(Othello game, char side) {
+		int diff = game.getCount(side) - game.getCount(OthelloBoard.otherPlayer(side));
+		if (diff > 0)
+			return WIN + diff;
+		if (diff < 0)
+			return -WIN + diff;
+		return 0;
+	}
+
+	/**
+	 *
+	 * @return the depth of the deepest completed iteration of the last search
+	 */
+	public int getDepthReached() {
+		return this.depthReached;
+	}
+
+	/**
+	 *
+	 * @return the score of the last search for the player who was to move
+	 */
+	public int getScore() {
+		return this.score;
+	}
+
+	public int getBestMove() {
+		return this.bestMove;
+	}
+
+	/**
+	 *
+	 * @return the nodes searched by all threads in the last search
+	 */
+	public long getNodes() {
+		return this.totalNodes;
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000;
+	}
+
+	public long getNodesPerSecond() {
+		return this.elapsedNanos == 0 ? 0 : this.totalNodes * 1000000000L / this.elapsedNanos;
+	}
+
+	public TranspositionTable getTable() {
+		return this.table;
+	}
+
+	public String toString() {
+		return "depth " + this.depthReached + ", score " + this.score + ", " + this.totalNodes + " nodes in "
+				+ this.getElapsedMillis() + " ms, " + this.getNodesPerSecond() + " nodes/s, " + this.getThreads()
+				+ " threads";
+	}
+
+	/**
+	 * Search game to depth once with one thread and once with threads threads,
+	 * each starting from an empty table.
+	 *
+	 * @return how many times faster the search with threads threads was
+	 */
+	public static double measureSpeedup(Othello game, int depth, int threads, long tableBytes) {
+		long[] elapsed = new long[2];
+		int[] counts = { 1, threads };
+		for (int i = 0; i < 2; i++) {
+			AlphaBetaSearch search = new AlphaBetaSearch(
+					new TranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED));
+			search.setThreads(counts[i]);
+			long start = System.nanoTime();
+			search.search(game, Long.MAX_VALUE / 2000000, Long.MAX_VALUE, depth);
+			elapsed[i] = System.nanoTime() - start;
+			search.setThreads(1);
+		}
+		return (double) elapsed[0] / elapsed[1];
+	}
+
+	/**
+	 * Report the speedup of a fixed depth search from the initial position.
+	 * 
+	 * @param args the depth and the number of threads, by default 12 and the
+	 *             number of processors
+	 */
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		double speedup = measureSpeedup(new Othello(), depth, threads, 64 << 20);
+		System.out.printf("depth %d: %d threads are %.2f times faster than 1%n", depth, threads, speedup);
+	}
+}
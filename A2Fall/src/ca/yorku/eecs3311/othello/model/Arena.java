@@ -0,0 +1,462 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays several Player configurations against each other, every pair of them,
+ * and rates them on the Elo scale. Instead of a fixed number of games, each
+ * pairing is played until a sequential probability ratio test (SPRT) decides
+ * between H0, the first is no more than elo0 stronger than the second, and H1,
+ * it is at least elo1 stronger, with error rates alpha and beta. A clear
+ * difference is decided in a few dozen games, and a regression check only
+ * plays as many games as it needs.
+ *
+ * The players of a pairing swap colours every game, and both games of each
+ * pair use the same random numbers, so neither gets the better side of the
+ * board or of the luck. All the pairings are played at the same time, each
+ * thread taking the next game of the next undecided pairing.
+ *
+ * Every game is written to a CSV file as soon as it ends, with the running
+ * counts of its pairing, so a run that is killed keeps all the games played.
+ *
+ * The log likelihood ratio is the usual normal approximation for the game
+ * score, with draws counted as half a win, see llr.
+ *
+ * @author Helena
+ *
+ */
+public class Arena {
+	public static final String CSV_HEADER = "game,first,second,first colour,first score,wins,draws,losses,llr,elo,elo error";
+	// for 95% error bars
+	private static final double Z = 1.96;
+
+	public enum Decision {
+		NONE, H0, H1
+	}
+
+	/**
+	 * Two configurations playing each other, with the results from the point of
+	 * view of the first.
+	 */
+	public class Pairing {
+		private final int first, second;
+		private final AtomicInteger nextGame = new AtomicInteger();
+		private int wins, draws, losses;
+		private double llr;
+		private volatile Decision decision = Decision.NONE;
+
+		Pairing(int first, int second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		/**
+		 *
+		 * @return the next game to play, -1 if this pairing needs no more games
+		 */
+		int claim() {
+			if (this.decision != Decision.NONE)
+				return -1;
+			int game = this.nextGame.getAndIncrement();
+			return game < Arena.this.maxGames ? game : -1;
+		}
+
+		/**
+		 * Count a game, update the test, and write it out.
+		 *
+		 * @param score 2 for a win of the first, 1 for a draw, 0 for a loss
+		 */
+		synchronized void record(int game, boolean firstIsP1, int score) {
+			if (score == 2)
+				this.wins++;
+			else if (score == 1)
+				this.draws++;
+			else
+				this.losses++;
+			this.llr = llr(this.wins, this.draws, this.losses, Arena.this.elo0, Arena.this.elo1);
+			if (this.decision == Decision.NONE) {
+				if (this.llr >= Arena.this.upperBound)
+					this.decision = Decision.H1;
+				else if (this.llr <= Arena.this.lowerBound)
+					this.decision = Decision.H0;
+			}
+			Arena.this.write(String.format("%d,%s,%s,%s,%s,%d,%d,%d,%.4f,%.1f,%.1f", game,
+					Arena.this.names.get(this.first), Arena.this.names.get(this.second), firstIsP1 ? "P1" : "P2",
+					score == 2 ? "1" : score == 1 ? "0.5" : "0", this.wins, this.draws, this.losses, this.llr,
+					this.getElo(), this.getEloError()));
+		}
+
+		public String getFirst() {
+			return Arena.this.names.get(this.first);
+		}
+
+		public String getSecond() {
+			return Arena.this.names.get(this.second);
+		}
+
+		public synchronized int getGames() {
+			return this.wins + this.draws + this.losses;
+		}
+
+		public synchronized int getWins() {
+			return this.wins;
+		}
+
+		public synchronized int getDraws() {
+			return this.draws;
+		}
+
+		public synchronized int getLosses() {
+			return this.losses;
+		}
+
+		public synchronized double getLLR() {
+			return this.llr;
+		}
+
+		public Decision getDecision() {
+			return this.decision;
+		}
+
+		/**
+		 *
+		 * @return how much stronger the first is than the second, in Elo
+		 */
+		public synchronized double getElo() {
+			int games = this.getGames();
+			return games == 0 ? 0 : elo((this.wins + this.draws / 2.0) / games);
+		}
+
+		/**
+		 *
+		 * @return the half width of the 95% error bars of getElo
+		 */
+		public synchronized double getEloError() {
+			int games = this.getGames();
+			if (games == 0)
+				return Double.POSITIVE_INFINITY;
+			double score = (this.wins + this.draws / 2.0) / games;
+			double deviation = Math.sqrt(variance(this.wins + 0.5, this.draws, this.losses + 0.5) / games);
+			return (elo(score + Z * deviation) - elo(score - Z * deviation)) / 2;
+		}
+
+		public synchronized String toString() {
+			return String.format("%s vs %s: +%d =%d -%d, elo %.1f +/- %.1f, llr %.2f, %s", this.getFirst(),
+					this.getSecond(), this.wins, this.draws, this.losses, this.getElo(), this.getEloError(), this.llr,
+					this.decision == Decision.NONE ? "undecided" : this.decision);
+		}
+	}
+
+	private final List<String> names = new ArrayList<>();
+	private final List<PlayerFactory> players = new ArrayList<>();
+	private final List<Pairing> pairings = new ArrayList<>();
+	private double elo0 = 0, elo1 = 10, lowerBound, upperBound;
+	private int maxGames = 20000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long seed = 0;
+	private BufferedWriter out;
+	private long elapsedNanos;
+
+	public Arena() {
+		this.setErrors(0.05, 0.05);
+	}
+
+	/**
+	 * Add a configuration to play every one added before.
+	 *
+	 * @param name   the name of the configuration in the results
+	 * @param player creates the player for each game
+	 */
+	public void add(String name, PlayerFactory player) {
+		for (int i = 0; i < this.players.size(); i++) {
+			this.pairings.add(new Pairing(i, this.players.size()));
+		}
+		this.names.add(name);
+		this.players.add(player);
+	}
+
+	/**
+	 *
+	 * @param elo0 the difference in Elo of H0
+	 * @param elo1 the difference in Elo of H1, more than elo0
+	 */
+	public void setBounds(double elo0, double elo1) {
+		if (elo1 <= elo0)
+			throw new IllegalArgumentException("elo1 must be more than elo0");
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+	}
+
+	/**
+	 *
+	 * @param alpha the chance of deciding H1 when H0 holds
+	 * @param beta  the chance of deciding H0 when H1 holds
+	 */
+	public void setErrors(double alpha, double beta) {
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 *
+	 * @param maxGames the most games a pairing plays, if the test does not
+	 *                 decide first
+	 */
+	public void setMaxGames(int maxGames) {
+		this.maxGames = maxGames;
+	}
+
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+		this.threads = threads;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public List<Pairing> getPairings() {
+		return this.pairings;
+	}
+
+	/**
+	 * Play until every pairing is decided or has played the most games.
+	 *
+	 * @param csv the file to append the games to, null for none
+	 * @throws IOException if csv can not be written
+	 */
+	public void run(Path csv) throws IOException {
+		long start = System.nanoTime();
+		if (csv != null) {
+			boolean isNew = !Files.exists(csv) || Files.size(csv) == 0;
+			this.out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+			if (isNew)
+				this.write(CSV_HEADER);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads, r -> {
+			Thread thread = new Thread(r, "Arena worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Callable<Void>> workers = new ArrayList<>();
+			for (int i = 0; i < this.threads; i++) {
+				int worker = i;
+				workers.add(() -> {
+					this.work(worker);
+					return null;
+				});
+			}
+			for (Future<Void> future : pool.invokeAll(workers)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException)
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+			if (this.out != null) {
+				this.out.close();
+				this.out = null;
+			}
+			this.elapsedNanos = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Play games of the pairings in turn, starting from a different pairing on
+	 * each thread, until none needs any more.
+	 */
+	private void work(int worker) {
+		int n = this.pairings.size();
+		for (int i = worker;; i++) {
+			Pairing pairing = null;
+			int game = -1;
+			for (int k = 0; k < n && game < 0; k++) {
+				pairing = this.pairings.get((i + k) % n);
+				game = pairing.claim();
+			}
+			if (game < 0)
+				return;
+			// both games of a pair have the same random numbers, with colours swapped
+			Random rand = new Random(Tournament.seed(this.seed, game / 2));
+			boolean firstIsP1 = game % 2 == 0;
+			PlayerFactory first = this.players.get(pairing.first), second = this.players.get(pairing.second);
+			char winner = firstIsP1 ? Tournament.play(first, second, rand) : Tournament.play(second, first, rand);
+			char firstColour = firstIsP1 ? OthelloBoard.P1 : OthelloBoard.P2;
+			pairing.record(game, firstIsP1, winner == firstColour ? 2 : winner == OthelloBoard.EMPTY ? 1 : 0);
+		}
+	}
+
+	private void write(String line) {
+		if (this.out == null)
+			return;
+		synchronized (this.out) {
+			try {
+				this.out.write(line);
+				this.out.newLine();
+				this.out.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the variance of the score of one game, 1 for a win, 1/2 for a
+	 *         draw and 0 for a loss
+	 */
+	private static double variance(double wins, double draws, double losses) {
+		double games = wins + draws + losses;
+		double score = (wins + draws / 2) / games;
+		return (wins + draws / 4) / games - score * score;
+	}
+
+	/**
+	 * The log likelihood ratio of H1 to H0 for the results. The mean score over
+	 * the games is close to normal, with the variance seen so far, so the ratio
+	 * is that of two normal densities centred on the scores expected at elo1
+	 * and elo0. Half a win and half a loss are added for the variance, which
+	 * would otherwise be 0, and the test stuck, while one player wins every
+	 * game.
+	 *
+	 * @return the log likelihood ratio, 0 before any games
+	 */
+	public static double llr(int wins, int draws, int losses, double elo0, double elo1) {
+		int games = wins + draws + losses;
+		if (games == 0)
+			return 0;
+		double variance = variance(wins + 0.5, draws, losses + 0.5) / games;
+		double score = (wins + draws / 2.0) / games;
+		double score0 = expectedScore(elo0), score1 = expectedScore(elo1);
+		return (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+	}
+
+	/**
+	 *
+	 * @return the score expected against a player elo weaker
+	 */
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	/**
+	 *
+	 * @return the difference in Elo that gives the score, +/-1000 for a score of
+	 *         1 or 0
+	 */
+	public static double elo(double score) {
+		if (score <= 0)
+			return -1000;
+		if (score >= 1)
+			return 1000;
+		return Math.max(-1000, Math.min(1000, -400 * Math.log10(1 / score - 1)));
+	}
+
+	/**
+	 * Fit a rating to every configuration from all the games played, so that
+	 * configurations that never played each other are also compared. This is
+	 * the usual fit of the Bradley-Terry model, with draws as half a win each.
+	 *
+	 * @return the ratings in Elo, in the order added, the first at 0
+	 */
+	public double[] getRatings() {
+		int n = this.players.size();
+		double[][] games = new double[n][n];
+		double[] score = new double[n];
+		for (Pairing pairing : this.pairings) {
+			synchronized (pairing) {
+				int played = pairing.getGames();
+				games[pairing.first][pairing.second] += played;
+				games[pairing.second][pairing.first] += played;
+				// half a point on each side keeps a player that won or lost every game finite
+				score[pairing.first] += pairing.wins + pairing.draws / 2.0 + (played > 0 ? 0.5 : 0);
+				score[pairing.second] += pairing.losses + pairing.draws / 2.0 + (played > 0 ? 0.5 : 0);
+				games[pairing.first][pairing.second] += played > 0 ? 1 : 0;
+				games[pairing.second][pairing.first] += played > 0 ? 1 : 0;
+			}
+		}
+		double[] strength = new double[n];
+		Arrays.fill(strength, 1);
+		for (int iteration = 0; iteration < 1000; iteration++) {
+			for (int i = 0; i < n; i++) {
+				double sum = 0;
+				for (int j = 0; j < n; j++) {
+					if (games[i][j] > 0)
+						sum += games[i][j] / (strength[i] + strength[j]);
+				}
+				if (sum > 0)
+					strength[i] = score[i] / sum;
+			}
+		}
+		double[] ratings = new double[n];
+		for (int i = 0; i < n; i++) {
+			ratings[i] = 400 * Math.log10(strength[i] / strength[0]);
+		}
+		return ratings;
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		long games = 0;
+		for (Pairing pairing : this.pairings) {
+			s.append(pairing).append('\n');
+			games += pairing.getGames();
+		}
+		double[] ratings = this.getRatings();
+		for (int i = 0; i < ratings.length; i++) {
+			s.append(String.format("%s: %.1f%n", this.names.get(i), ratings[i]));
+		}
+		s.append(games).append(" games in ").append(this.getElapsedMillis()).append(" ms, ").append(this.threads)
+				.append(" threads");
+		return s.toString();
+	}
+
+	/**
+	 * Run an arena and print the results.
+	 *
+	 * @param args the CSV file to append the games to, then two or more
+	 *             configurations, as taken by PlayerFactory.of, for example
+	 *             AlphaBeta:4 AlphaBeta:6 AlphaBeta:6:e12 MonteCarlo:5000
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("usage: Arena csv-file player player...");
+			System.exit(1);
+		}
+		Arena arena = new Arena();
+		for (int i = 1; i < args.length; i++) {
+			arena.add(args[i], PlayerFactory.of(args[i]));
+		}
+		arena.run(Paths.get(args[0]));
+		System.out.println(arena);
+	}
+}
@@ -0,0 +1,312 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * Solves the end of a game exactly: the final disc difference with perfect
+ * play from both sides, and a move that achieves it. Unlike AlphaBetaSearch
+ * there is no evaluation and no depth limit, every line is played out to the
+ * end of the game.
+ *
+ * The solver works directly on the two token masks, with the player to move
+ * first, using OthelloBitBoard.moves and OthelloBitBoard.flips, and nothing is
+ * allocated while solving. Move ordering is what makes this fast enough:
+ * <ul>
+ * <li>with many empty squares, moves that leave the opponent the fewest
+ * replies are tried first (fastest first), along with the move found before in
+ * the transposition table,</li>
+ * <li>with few empty squares, moves in regions (quadrants) with an odd number
+ * of empty squares are tried first (parity), since the last move in a region
+ * is usually an advantage,</li>
+ * <li>the last empty square is played out without searching.</li>
+ * </ul>
+ *
+ * In WIN_LOSS_DRAW mode only the sign of the result is wanted, which is found
+ * with a null window and takes much less time than the exact score.
+ *
+ * @author Helena
+ *
+ */
+public class EndgameSolver {
+	public enum Mode {
+		/** Find only whether the player to move wins, loses or draws. */
+		WIN_LOSS_DRAW,
+		/** Find the exact final disc difference. */
+		EXACT
+	}
+
+	private static final long[] QUADRANTS = { 0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L,
+			0xF0F0F0F000000000L };
+	private static final long CORNERS = 0x8100000000000081L;
+
+	// below this many empty squares moves are ordered by parity only
+	private static final int FASTEST_FIRST_EMPTIES = 7;
+	// positions with fewer empty squares than this are not kept in the table
+	private static final int TABLE_EMPTIES = 11;
+
+	private final TranspositionTable table;
+
+	// moves and flips of the node with n empty squares are kept in row n
+	private final int[][] squares = new int[65][64];
+	private final long[][] flips = new long[65][64];
+	private final int[][] keys = new int[65][64];
+
+	private long nodes;
+	private int bestMove, score;
+	private long elapsedNanos;
+
+	/**
+	 *
+	 * @param table where positions with many empty squares are kept. Results are
+	 *              kept between solves, they stay valid
+	 */
+	public EndgameSolver(TranspositionTable table) {
+		this.table = table;
+	}
+
+	public EndgameSolver() {
+		this(new TranspositionTable(16 << 20, TranspositionTable.Replacement.DEPTH_PREFERRED));
+	}
+
+	/**
+	 * Solve game for the player to move.
+	 *
+	 * @param game the position to solve, it is not changed
+	 * @param mode WIN_LOSS_DRAW or EXACT
+	 * @return the best move as row*8+col, -1 if the player to move has no move
+	 */
+	public int solve(Othello game, Mode mode) {
+		char side = game.getWhosTurn();
+		if (side == OthelloBoard.EMPTY) {
+			this.nodes = 0;
+			this.bestMove = -1;
+			this.score = game.getCount(OthelloBoard.P1) - game.getCount(OthelloBoard.P2);
+			return -1;
+		}
+		return this.solve(game.getTokens(side), game.getTokens(OthelloBoard.otherPlayer(side)), mode);
+	}
+
+	/**
+	 * Solve the position with tokens own for the player to move and opp for the
+	 * other player.
+	 *
+	 * @return the best move as row*8+col, -1 if the player to move has no move
+	 */
+	public int solve(long own, long opp, Mode mode) {
+		long start = System.nanoTime();
+		this.nodes = 0;
+		this.bestMove = -1;
+		int alpha = mode == Mode.EXACT ? -65 : -1;
+		int beta = mode == Mode.EXACT ? 65 : 1;
+		long moves = OthelloBitBoard.moves(own, opp);
+		if (moves == 0) {
+			this.score = -this.negamax(opp, own, -beta, -alpha, true);
+		} else {
+			int empties = Long.bitCount(~(own | opp));
+			int count = this.orderMoves(own, opp, moves, empties, -1);
+			int best = -65;
+			for (int i = 0; i < count && best < beta; i++) {
+				long f = this.flips[empties][i];
+				long placed = 1L << this.squares[empties][i];
+				int value = -this.negamax(opp & ~f, own | f | placed, -beta, -Math.max(alpha, best), false);
+				if (value > best) {
+					best = value;
+					this.bestMove = this.squares[empties][i];
+				}
+			}
+			this.score = best;
+		}
+		this.elapsedNanos = System.nanoTime() - start;
+		return this.bestMove;
+	}
+
+	/**
+	 *
+	 * @param passed whether the other player just passed
+	 * @return the final disc difference for the player to move, or a bound on it
+	 *         if outside (alpha,beta)
+	 */
+	private int negamax(long own, long opp, int alpha, int beta, boolean passed) {
+		this.nodes++;
+		long empty = ~(own | opp);
+		int empties = Long.bitCount(empty);
+		if (empties == 1)
+			return this.lastMove(own, opp, Long.numberOfTrailingZeros(empty));
+		long moves = OthelloBitBoard.moves(own, opp);
+		if (moves == 0) {
+			if (passed)
+				return Long.bitCount(own) - Long.bitCount(opp);
+			return -this.negamax(opp, own, -beta, -alpha, true);
+		}
+		if (empties < FASTEST_FIRST_EMPTIES)
+			return this.parityNegamax(own, opp, moves, empty, alpha, beta);
+
+		long hash = 0;
+		int ttMove = -1;
+		if (empties >= TABLE_EMPTIES) {
+			hash = hash(own, opp);
+			long entry = this.table.probe(hash);
+			if (entry != TranspositionTable.MISS) {
+				int ttScore = TranspositionTable.getScore(entry);
+				int bound = TranspositionTable.getBound(entry);
+				if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && ttScore >= beta)
+						|| (bound == TranspositionTable.UPPER && ttScore <= alpha))
+					return ttScore;
+				ttMove = TranspositionTable.getMove(entry);
+			}
+		}
+
+		int alphaOriginal = alpha;
+		int best = -65, bestMove = -1;
+		int count = this.orderMoves(own, opp, moves, empties, ttMove);
+		for (int i = 0; i < count; i++) {
+			long f = this.flips[empties][i];
+			long placed = 1L << this.squares[empties][i];
+			int value = -this.negamax(opp & ~f, own | f | placed, -beta, -alpha, false);
+			if (value > best) {
+				best = value;
+				bestMove = this.squares[empties][i];
+				if (value > alpha) {
+					alpha = value;
+					if (alpha >= beta)
+						break;
+				}
+			}
+		}
+		if (empties >= TABLE_EMPTIES) {
+			int bound = best <= alphaOriginal ? TranspositionTable.UPPER
+					: best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			this.table.store(hash, empties, bound, best, bestMove);
+		}
+		return best;
+	}
+
+	/**
+	 * Try moves in quadrants with an odd number of empty squares first, with no
+	 * other ordering and no table.
+	 */
+	private int parityNegamax(long own, long opp, long moves, long empty, int alpha, int beta) {
+		int best = -65;
+		for (int pass = 0; pass < 2; pass++) {
+			for (long quadrant : QUADRANTS) {
+				boolean odd = (Long.bitCount(empty & quadrant) & 1) != 0;
+				if (odd != (pass == 0))
+					continue;
+				for (long m = moves & quadrant; m != 0; m &= m - 1) {
+					int square = Long.numberOfTrailingZeros(m);
+					long f = OthelloBitBoard.flips(square, own, opp);
+					int value = -this.negamax(opp & ~f, own | f | (1L << square), -beta, -alpha, false);
+					if (value > best) {
+						best = value;
+						if (value > alpha) {
+							alpha = value;
+							if (alpha >= beta)
+								return best;
+						}
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Play out the last empty square: the player to move takes it if they can,
+	 * else the other player if they can.
+	 *
+	 * @return the final disc difference for the player to move
+	 */
+	private int lastMove(long own, long opp, int square) {
+		int diff = Long.bitCount(own) - Long.bitCount(opp);
+		long f = OthelloBitBoard.flips(square, own, opp);
+		if (f != 0)
+			return diff + 2 * Long.bitCount(f) + 1;
+		f = OthelloBitBoard.flips(square, opp, own);
+		if (f != 0)
+			return diff - 2 * Long.bitCount(f) - 1;
+		return diff;
+	}
+
+	/**
+	 * Fill row empties of squares and flips with the legal moves, best first:
+	 * the table move, then by the fewest replies left to the opponent, corners
+	 * and odd quadrants breaking ties.
+	 *
+	 * @return the number of moves
+	 */
+	private int orderMoves(long own, long opp, long moves, int empties, int ttMove) {
+		int[] squares = this.squares[empties];
+		long[] flips = this.flips[empties];
+		int[] keys = this.keys[empties];
+		long empty = ~(own | opp);
+		int count = 0;
+		for (long m = moves; m != 0; m &= m - 1) {
+			int square = Long.numberOfTrailingZeros(m);
+			long placed = 1L << square;
+			long f = OthelloBitBoard.flips(square, own, opp);
+			int key;
+			if (square == ttMove) {
+				key = -1000;
+			} else {
+				key = 16 * Long.bitCount(OthelloBitBoard.moves(opp & ~f, own | f | placed));
+				if ((placed & CORNERS) != 0)
+					key -= 8;
+				if ((Long.bitCount(empty & quadrant(square)) & 1) == 0)
+					key += 4;
+			}
+			// insertion sort, the lists are short
+			int i = count++;
+			for (; i > 0 && keys[i - 1] > key; i--) {
+				keys[i] = keys[i - 1];
+				squares[i] = squares[i - 1];
+				flips[i] = flips[i - 1];
+			}
+			keys[i] = key;
+			squares[i] = square;
+			flips[i] = f;
+		}
+		return count;
+	}
+
+	private static long quadrant(int square) {
+		return QUADRANTS[(square >= 32 ? 2 : 0) + ((square & 7) >= 4 ? 1 : 0)];
+	}
+
+	/**
+	 * A cheap hash of the position for the table, the side to move is implied
+	 * since own always moves next.
+	 */
+	private static long hash(long own, long opp) {
+		long h = own * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opp * 0xC2B2AE3D27D4EB4FL, 31);
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 *
+	 * @return the result of the last solve for the player who was to move: the
+	 *         final disc difference in EXACT mode, in WIN_LOSS_DRAW mode only its
+	 *         sign is meaningful
+	 */
+	public int getScore() {
+		return this.score;
+	}
+
+	public int getBestMove() {
+		return this.bestMove;
+	}
+
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000;
+	}
+
+	public long getNodesPerSecond() {
+		return this.elapsedNanos == 0 ? 0 : this.nodes * 1000000000L / this.elapsedNanos;
+	}
+
+	public String toString() {
+		return "solved, score " + this.score + ", " + this.nodes + " nodes in " + this.getElapsedMillis() + " ms, "
+				+ this.getNodesPerSecond() + " nodes/s";
+	}
+}
@@ -0,0 +1,42 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * Scores positions for AlphaBetaSearch. An evaluator can keep its own state
+ * about the position, kept up to date as the search makes and takes back
+ * moves, so it does not have to look at the whole board for every position it
+ * scores.
+ *
+ * @author Helena
+ *
+ */
+public interface Evaluator {
+	/**
+	 * Start from the position in game, before searching it.
+	 */
+	void setPosition(Othello game);
+
+	/**
+	 * player moved to square, flipping the tokens in flips.
+	 */
+	void move(int square, long flips, char player);
+
+	/**
+	 * Take back a move passed to move. Moves are taken back in the reverse order
+	 * they were made.
+	 */
+	void undoMove(int square, long flips, char player);
+
+	/**
+	 *
+	 * @param game the position, the same as the one this evaluator was moved to
+	 * @param side P1 or P2
+	 * @return the score of game for side, positive if side is better off
+	 */
+	int evaluate(Othello game, char side);
+
+	/**
+	 *
+	 * @return a new evaluator like this one, for another search thread
+	 */
+	Evaluator copy();
+}
@@ -0,0 +1,167 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ca.yorku.eecs3311.othello.command.GameHistory;
+
+/**
+ * The binary format of a saved game, big endian:
+ * <pre>
+ * int MAGIC, byte VERSION, byte flags,
+ * if flags has CUSTOM_START:
+ *     long P1 tokens, long P2 tokens, byte who moves next, short moves made,
+ * byte moves kept, byte moves made since the start,
+ * byte moves[moves kept]
+ * </pre>
+ * Without CUSTOM_START the game starts from the initial position. Each move is
+ * its square row*8+col, plus P2_MOVED if P2 made it, as in GameHistory.
+ * Passes are not written, they follow from the moves. Moves after those made
+ * since the start were undone, and can be redone once the game is loaded.
+ *
+ * A game from the initial position takes 8 bytes plus one per move. It is
+ * loaded by replaying the moves on an OthelloBitBoard, so loading is no more
+ * work than playing the moves.
+ *
+ * The encoding works on a ByteBuffer, so that games can also be packed one
+ * after the other into a larger file.
+ *
+ * @author Helena
+ *
+ */
+public class GameFile {
+	public static final int MAGIC = 0x4F544847; // "OTHG"
+	public static final int VERSION = 1;
+
+	private static final int CUSTOM_START = 1;
+	private static final int P2_MOVED = 0x40;
+	// the most bytes a game can take
+	private static final int MAX_BYTES = 4 + 2 + 19 + 2 + 255;
+
+	/**
+	 *
+	 * @return the number of bytes encode writes for game
+	 */
+	public static int size(Othello game) {
+		GameHistory history = game.getHistory();
+		return 4 + 2 + (isCustomStart(history) ? 19 : 0) + 2 + history.size();
+	}
+
+	private static boolean isCustomStart(GameHistory history) {
+		if (history.getStartMoves() != 0 || history.getStartTurn() != OthelloBoard.P1)
+			return true;
+		OthelloBoard start = history.getStart(), initial = new OthelloBitBoard();
+		return start.getTokens(OthelloBoard.P1) != initial.getTokens(OthelloBoard.P1)
+				|| start.getTokens(OthelloBoard.P2) != initial.getTokens(OthelloBoard.P2);
+	}
+
+	/**
+	 * Write game at the position of out.
+	 *
+	 * @param out has at least size(game) bytes remaining
+	 */
+	public static void encode(Othello game, ByteBuffer out) {
+		GameHistory history = game.getHistory();
+		out.putInt(MAGIC);
+		out.put((byte) VERSION);
+		if (isCustomStart(history)) {
+			OthelloBoard start = history.getStart();
+			out.put((byte) CUSTOM_START);
+			out.putLong(start.getTokens(OthelloBoard.P1));
+			out.putLong(start.getTokens(OthelloBoard.P2));
+			out.put((byte) history.getStartTurn());
+			out.putShort((short) history.getStartMoves());
+		} else {
+			out.put((byte) 0);
+		}
+		out.put((byte) history.size());
+		out.put((byte) history.getUndoCount());
+		for (int n = 0; n < history.size(); n++) {
+			out.put((byte) (history.getSquare(n) | (history.getPlayer(n) == OthelloBoard.P2 ? P2_MOVED : 0)));
+		}
+	}
+
+	/**
+	 * Read a game written by encode, at the position of in.
+	 *
+	 * @return the game, in the position it was in when written
+	 * @throws IOException if in does not hold a game in this format
+	 */
+	public static Othello decode(ByteBuffer in) throws IOException {
+		try {
+			if (in.getInt() != MAGIC)
+				throw new IOException("not an Othello game file");
+			int version = in.get();
+			if (version != VERSION)
+				throw new IOException("unsupported Othello game file version " + version);
+			int flags = in.get();
+			OthelloBoard start;
+			char whosTurn = OthelloBoard.P1;
+			int numMoves = 0;
+			if ((flags & CUSTOM_START) != 0) {
+				long p1 = in.getLong(), p2 = in.getLong();
+				whosTurn = (char) in.get();
+				numMoves = in.getShort();
+				if ((p1 & p2) != 0 || (whosTurn != OthelloBoard.P1 && whosTurn != OthelloBoard.P2
+						&& whosTurn != OthelloBoard.EMPTY))
+					throw new IOException("corrupt Othello game file: bad start position");
+				start = new OthelloBitBoard(p1, p2);
+			} else {
+				start = new OthelloBitBoard();
+			}
+			Othello game = Othello.startingFrom(start, whosTurn, numMoves);
+			int size = in.get() & 0xFF, made = in.get() & 0xFF;
+			if (made > size)
+				throw new IOException("corrupt Othello game file: bad move count");
+			for (int n = 0; n < size; n++) {
+				int move = in.get();
+				char player = (move & P2_MOVED) != 0 ? OthelloBoard.P2 : OthelloBoard.P1;
+				int square = move & 0x3F;
+				if (player != game.getWhosTurn() || !game.move(square / 8, square % 8))
+					throw new IOException("corrupt Othello game file: illegal move " + n);
+			}
+			for (int n = made; n < size; n++) {
+				game.undo();
+			}
+			return game;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Othello game file is truncated");
+		}
+	}
+
+	/**
+	 * Write game to file, replacing it.
+	 *
+	 * @throws IOException
+	 */
+	public static void save(Othello game, Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size(game));
+		encode(game, buffer);
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Read a game written by save.
+	 *
+	 * @throws IOException if file can not be read or does not hold a game
+	 */
+	public static Othello load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), MAX_BYTES));
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+				;
+			buffer.flip();
+			return decode(buffer);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * A simple evaluation: corners and edges are good, the squares next to an
+ * empty corner are bad, and having more moves than the opponent is good. It
+ * looks only at the token masks of the position, so it keeps no state.
+ *
+ * @author Helena
+ *
+ */
+public class HeuristicEvaluator implements Evaluator {
+	private static final long CORNERS = 0x8100000000000081L;
+	private static final long EDGES = 0x3C0081818181003CL;
+
+	@Override
+	public void setPosition(Othello game) {
+	}
+
+	@Override
+	public void move(int square, long flips, char player) {
+	}
+
+	@Override
+	public void undoMove(int square, long flips, char player) {
+	}
+
+	@Override
+	public int evaluate(Othello game, char side) {
+		char other = OthelloBoard.otherPlayer(side);
+		long own = game.getTokens(side), opp = game.getTokens(other);
+		long empty = ~(own | opp);
+		// next to a corner is only dangerous while the corner is empty
+		long emptyCorners = empty & CORNERS;
+		long risky = 0;
+		for (long c = emptyCorners; c != 0; c &= c - 1) {
+			risky |= neighbours(Long.numberOfTrailingZeros(c));
+		}
+		int score = 30 * (Long.bitCount(own & CORNERS) - Long.bitCount(opp & CORNERS));
+		score += 4 * (Long.bitCount(own & EDGES) - Long.bitCount(opp & EDGES));
+		score -= 12 * (Long.bitCount(own & risky) - Long.bitCount(opp & risky));
+		score += 8 * (Long.bitCount(game.getMoves(side)) - Long.bitCount(game.getMoves(other)));
+		return score;
+	}
+
+	private static long neighbours(int corner) {
+		switch (corner) {
+		case 0:
+			return 0x0000000000000302L;
+		case 7:
+			return 0x000000000000C040L;
+		case 56:
+			return 0x0203000000000000L;
+		default:
+			return 0x40C0000000000000L;
+		}
+	}
+
+	@Override
+	public Evaluator copy() {
+		return this;
+	}
+}
@@ -0,0 +1,381 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Monte Carlo Tree Search with UCT. Each playout walks down the tree from the
+ * root, choosing at each node the child with the best upper confidence bound
+ * on its win rate, plays the game out from the leaf with random moves, like
+ * PlayerRandom, and counts the result in every node on the way back up. A
+ * node's children are only added once it has been visited EXPAND_VISITS
+ * times, which keeps the tree small. No evaluation is needed, only the
+ * result of finished games. The move played is the root's most visited
+ * child.
+ *
+ * Playouts are run on bitboards, without any Othello, and only take a random
+ * corner when one is available, which is nearly free and makes the results
+ * much less noisy than uniform random moves.
+ *
+ * With more than one thread (setThreads), all threads grow the same tree. A
+ * node's visits and wins are one long updated atomically, with no locks, and a
+ * thread counts its visit on the way down, before it knows the result. Until
+ * the result is added, the visit counts as a loss (a virtual loss), which
+ * steers the other threads to other children instead of all piling into the
+ * same line. With one thread the search is deterministic for a given seed.
+ *
+ * @author Helena
+ *
+ */
+public class MonteCarloTreeSearch {
+	public static final int EXPAND_VISITS = 8;
+	public static final double DEFAULT_EXPLORATION = 1.0;
+
+	private static final long CORNERS = 0x8100000000000081L;
+	private static final int PASS = -1;
+	// results are counted in half points, so a draw counts
+	private static final int WIN = 2, DRAW = 1;
+
+	/**
+	 * A node of the tree, for the position after square is played. Its wins
+	 * are from the point of view of the player who played square.
+	 */
+	private static final class Node {
+		static final Node[] NONE = new Node[0];
+
+		final int square;
+		// visits in the high 32 bits, wins in half points in the low 32 bits
+		volatile long stats;
+		// null until expanded, NONE once the game is over
+		volatile Node[] children;
+
+		Node(int square) {
+			this.square = square;
+		}
+
+		int getVisits() {
+			return (int) (this.stats >>> 32);
+		}
+	}
+
+	private static final AtomicLongFieldUpdater<Node> STATS = AtomicLongFieldUpdater.newUpdater(Node.class,
+			"stats");
+	private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN = AtomicReferenceFieldUpdater
+			.newUpdater(Node.class, Node[].class, "children");
+
+	/**
+	 * A thread running playouts, with its own random numbers.
+	 */
+	private class Worker implements Runnable {
+		private final Random rand;
+		private final Node[] path = new Node[128];
+
+		Worker(long seed) {
+			this.rand = new Random(seed);
+		}
+
+		@Override
+		public void run() {
+			MonteCarloTreeSearch search = MonteCarloTreeSearch.this;
+			while (!search.stopped) {
+				this.simulate();
+				if (search.isOutOfBudget())
+					search.stopped = true;
+			}
+		}
+
+		/**
+		 * One playout: down the tree, out to the end of the game, and the result
+		 * back up.
+		 */
+		private void simulate() {
+			MonteCarloTreeSearch search = MonteCarloTreeSearch.this;
+			long own = search.rootOwn, opp = search.rootOpp;
+			Node node = search.root;
+			int depth = 0;
+			this.path[depth++] = node;
+			STATS.addAndGet(node, 1L << 32);
+			while (true) {
+				Node[] children = node.children;
+				if (children == null) {
+					if (node.getVisits() <= EXPAND_VISITS && node != search.root)
+						break;
+					children = expand(node, own, opp);
+				}
+				if (children.length == 0)
+					break;
+				node = select(node, children, search.exploration);
+				STATS.addAndGet(node, 1L << 32); // the virtual loss, until the result is in
+				if (node.square != PASS) {
+					long flips = OthelloBitBoard.flips(node.square, own, opp);
+					own |= flips | 1L << node.square;
+					opp &= ~flips;
+				}
+				long t = own;
+				own = opp;
+				opp = t;
+				this.path[depth++] = node;
+			}
+			// the leaf's wins are for the player who moved into it, the other one
+			int result = MonteCarloTreeSearch.playout(own, opp, this.rand);
+			for (int i = depth - 1; i >= 0; i--) {
+				STATS.addAndGet(this.path[i], result < 0 ? WIN : result == 0 ? DRAW : 0);
+				result = -result;
+			}
+		}
+	}
+
+	private final Random seeds = new Random(0);
+	private Worker[] workers = new Worker[] { new Worker(this.seeds.nextLong()) };
+	private ExecutorService pool;
+	private double exploration = DEFAULT_EXPLORATION;
+
+	private volatile boolean stopped;
+	private long deadline, playoutLimit;
+	private Node root;
+	private long rootOwn, rootOpp;
+
+	// statistics of the last search
+	private int bestMove = -1;
+	private long playouts, elapsedNanos;
+	private double winRate;
+
+	/**
+	 * Use threads threads to search, the calling thread and threads-1 others,
+	 * which are kept between searches.
+	 *
+	 * @param threads the number of threads, at least 1
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+		this.workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new Worker(this.seeds.nextLong());
+		}
+		if (threads > 1) {
+			this.pool = Executors.newFixedThreadPool(threads - 1, r -> {
+				Thread thread = new Thread(r, "MonteCarloTreeSearch worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	public int getThreads() {
+		return this.workers.length;
+	}
+
+	/**
+	 * Restart the random numbers of the playouts, so the next searches can be
+	 * repeated.
+	 */
+	public void setSeed(long seed) {
+		this.seeds.setSeed(seed);
+		for (int i = 0; i < this.workers.length; i++) {
+			this.workers[i] = new Worker(this.seeds.nextLong());
+		}
+	}
+
+	/**
+	 *
+	 * @param exploration how much UCT favours children with few visits over
+	 *                    those with the best win rate
+	 */
+	public void setExploration(double exploration) {
+		this.exploration = exploration;
+	}
+
+	/**
+	 * Search game until the time or the playouts run out, whichever is first.
+	 *
+	 * @param game         the position to search, it is not changed
+	 * @param timeMillis   the wall clock budget
+	 * @param playoutLimit the number of playouts, for all threads together
+	 * @return the best move as row*8+col, -1 if the player to move has no move
+	 */
+	public int search(Othello game, long timeMillis, long playoutLimit) {
+		long start = System.nanoTime();
+		this.deadline = start + timeMillis * 1000000;
+		this.playoutLimit = Math.min(playoutLimit, Integer.MAX_VALUE / 2);
+		this.root = new Node(PASS);
+		char player = game.getWhosTurn();
+		this.rootOwn = game.getTokens(player);
+		this.rootOpp = game.getTokens(OthelloBoard.otherPlayer(player));
+		this.bestMove = -1;
+		this.winRate = 0;
+		this.stopped = false;
+		if (player == OthelloBoard.EMPTY || OthelloBitBoard.moves(this.rootOwn, this.rootOpp) == 0) {
+			this.playouts = 0;
+			this.elapsedNanos = System.nanoTime() - start;
+			return -1;
+		}
+		Future<?>[] running = new Future<?>[this.workers.length - 1];
+		for (int i = 0; i < running.length; i++) {
+			running[i] = this.pool.submit(this.workers[i + 1]);
+		}
+		this.workers[0].run();
+		for (Future<?> future : running) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		this.elapsedNanos = System.nanoTime() - start;
+		this.playouts = this.root.getVisits();
+		Node best = null;
+		for (Node child : this.root.children) {
+			if (best == null || child.getVisits() > best.getVisits())
+				best = child;
+		}
+		this.bestMove = best.square;
+		this.winRate = best.getVisits() == 0 ? 0 : (double) (int) best.stats / (WIN * best.getVisits());
+		this.root = null; // let the tree go
+		return this.bestMove;
+	}
+
+	private boolean isOutOfBudget() {
+		return this.root.getVisits() >= this.playoutLimit || System.nanoTime() - this.deadline > 0;
+	}
+
+	/**
+	 * Add the children of node, for the player owning own to move. If another
+	 * thread got there first, its children are kept.
+	 *
+	 * @return the children
+	 */
+	private static Node[] expand(Node node, long own, long opp) {
+		long moves = OthelloBitBoard.moves(own, opp);
+		Node[] children;
+		if (moves != 0) {
+			children = new Node[Long.bitCount(moves)];
+			for (int i = 0; moves != 0; moves &= moves - 1) {
+				children[i++] = new Node(Long.numberOfTrailingZeros(moves));
+			}
+		} else if (OthelloBitBoard.moves(opp, own) != 0) {
+			children = new Node[] { new Node(PASS) };
+		} else {
+			children = Node.NONE;
+		}
+		if (!CHILDREN.compareAndSet(node, null, children))
+			children = node.children;
+		return children;
+	}
+
+	/**
+	 *
+	 * @return the child of node with the best upper confidence bound, one not
+	 *         visited yet if there is any
+	 */
+	private static Node select(Node node, Node[] children, double exploration) {
+		double logVisits = Math.log(Math.max(1, node.getVisits()));
+		Node best = null;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (Node child : children) {
+			long stats = child.stats;
+			int visits = (int) (stats >>> 32);
+			if (visits == 0)
+				return child;
+			double value = (double) (int) stats / (WIN * visits) + exploration * Math.sqrt(logVisits / visits);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Play random moves to the end of the game, taking a corner whenever there
+	 * is one.
+	 *
+	 * @return the final disc difference for the player owning own
+	 */
+	static int playout(long own, long opp, Random rand) {
+		boolean swapped = false;
+		while (true) {
+			long moves = OthelloBitBoard.moves(own, opp);
+			if (moves == 0) {
+				if (OthelloBitBoard.moves(opp, own) == 0)
+					break;
+			} else {
+				if ((moves & CORNERS) != 0)
+					moves &= CORNERS;
+				for (int k = rand.nextInt(Long.bitCount(moves)); k > 0; k--) {
+					moves &= moves - 1;
+				}
+				int square = Long.numberOfTrailingZeros(moves);
+				long flips = OthelloBitBoard.flips(square, own, opp);
+				own |= flips | 1L << square;
+				opp &= ~flips;
+			}
+			long t = own;
+			own = opp;
+			opp = t;
+			swapped = !swapped;
+		}
+		int diff = Long.bitCount(own) - Long.bitCount(opp);
+		return swapped ? -diff : diff;
+	}
+
+	public int getBestMove() {
+		return this.bestMove;
+	}
+
+	/**
+	 *
+	 * @return the fraction of the playouts through the best move that the
+	 *         player to move won, draws counting half
+	 */
+	public double getWinRate() {
+		return this.winRate;
+	}
+
+	/**
+	 *
+	 * @return the playouts run by all threads in the last search
+	 */
+	public long getPlayouts() {
+		return this.playouts;
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000;
+	}
+
+	public long getPlayoutsPerSecond() {
+		return this.elapsedNanos == 0 ? 0 : this.playouts * 1000000000L / this.elapsedNanos;
+	}
+
+	public String toString() {
+		return String.format("win rate %.3f, %d playouts in %d ms, %d playouts/s, %d threads", this.winRate,
+				this.playouts, this.getElapsedMillis(), this.getPlayoutsPerSecond(), this.getThreads());
+	}
+
+	/**
+	 * Report the playouts per second from the initial position.
+	 *
+	 * @param args the milliseconds to search and the number of threads, by
+	 *             default 1000 and the number of processors
+	 */
+	public static void main(String[] args) {
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		MonteCarloTreeSearch search = new MonteCarloTreeSearch();
+		search.setThreads(threads);
+		search.search(new Othello(), millis, Long.MAX_VALUE);
+		System.out.println(search);
+	}
+}
@@ -0,0 +1,71 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * A reusable list of moves, backed by an int array of squares, where square
+ * row*8+col is (row,col). The caller owns the list and passes it to
+ * OthelloBoard.getMoves or Othello.getMoves, which refill it, so moves can be
+ * enumerated every turn without creating any garbage.
+ *
+ * Moves are kept in increasing square order, that is, by row and then by
+ * column.
+ *
+ * @author Helena
+ *
+ */
+public class MoveList {
+	private final int[] squares = new int[64];
+	private int size = 0;
+
+	/**
+	 * Replace the contents of this with the squares set in mask.
+	 *
+	 * @param mask bit row*8+col is set for each move (row,col)
+	 */
+	public void setMoves(long mask) {
+		int n = 0;
+		while (mask != 0) {
+			this.squares[n++] = Long.numberOfTrailingZeros(mask);
+			mask &= mask - 1;
+		}
+		this.size = n;
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 *
+	 * @param i in {0,...,size()-1}
+	 * @return the square row*8+col of the i-th move
+	 */
+	public int getSquare(int i) {
+		return this.squares[i];
+	}
+
+	public int getRow(int i) {
+		return this.squares[i] >>> 3;
+	}
+
+	public int getCol(int i) {
+		return this.squares[i] & 7;
+	}
+
+	public String toString() {
+		String s = "[";
+		for (int i = 0; i < this.size; i++) {
+			if (i > 0)
+				s += ",";
+			s += "(" + this.getRow(i) + "," + this.getCol(i) + ")";
+		}
+		return s + "]";
+	}
+}
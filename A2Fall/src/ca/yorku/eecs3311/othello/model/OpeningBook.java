@@ -0,0 +1,177 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A book of opening positions that have already been analysed, so a player can
+ * play them straight away instead of searching. Positions are looked up by
+ * their canonical hash (Othello.getCanonicalHash), so a position and its
+ * rotations and reflections share one record, and give the best move found,
+ * in the frame of the canonical form, and its score.
+ *
+ * The book is a binary file, written by OpeningBookBuilder: a header, then one
+ * fixed size record per position, sorted by hash. Opening a book maps the file
+ * into memory without reading it, and a lookup is a binary search over the
+ * mapped records, so there is nothing to parse, nothing on the heap, and
+ * opening a book of tens of millions of positions takes no longer than opening
+ * a small one. The operating system pages in the parts of the file that are
+ * used.
+ *
+ * File layout, big endian:
+ * <pre>
+ * header: int MAGIC, int VERSION, long number of records
+ * record: long hash, short score, byte move (row*8+col), byte depth
+ * </pre>
+ *
+ * @author Helena
+ *
+ */
+public class OpeningBook implements Closeable {
+	public static final int MAGIC = 0x4F424F4B; // "OBOK"
+	public static final int VERSION = 2;
+	public static final int HEADER_BYTES = 16;
+	public static final int RECORD_BYTES = 12;
+
+	// records are mapped in chunks, a single mapping is limited to 2GB
+	private static final int CHUNK_BITS = 26;
+	private static final long CHUNK_RECORDS = 1L << CHUNK_BITS;
+
+	private final FileChannel channel;
+	private final ByteBuffer[] chunks;
+	private final long size;
+
+	private OpeningBook(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("not an opening book");
+		if (header.getInt(4) != VERSION)
+			throw new IOException("unsupported opening book version " + header.getInt(4));
+		this.size = header.getLong(8);
+		if (HEADER_BYTES + this.size * RECORD_BYTES > channel.size())
+			throw new IOException("opening book is truncated");
+		this.chunks = new ByteBuffer[(int) ((this.size + CHUNK_RECORDS - 1) >>> CHUNK_BITS)];
+		for (int i = 0; i < this.chunks.length; i++) {
+			long first = (long) i << CHUNK_BITS;
+			long records = Math.min(CHUNK_RECORDS, this.size - first);
+			this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+					records * RECORD_BYTES);
+		}
+	}
+
+	/**
+	 * Map the book in file into memory.
+	 *
+	 * @param file a book written by OpeningBookBuilder
+	 * @return the book, to be closed when no longer needed
+	 * @throws IOException if file can not be read or is not a book
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new OpeningBook(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 *
+	 * @param hash a position hash
+	 * @return the index of the record for hash, -1 if it is not in the book
+	 */
+	public long find(long hash) {
+		long lo = 0, hi = this.size - 1;
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long h = this.getHash(mid);
+			if (h < hash)
+				lo = mid + 1;
+			else if (h > hash)
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @param game the position to look up
+	 * @return the book move for the player to move in game, null if the position
+	 *         is not in the book
+	 */
+	public Move getMove(Othello game) {
+		long i = this.find(game.getCanonicalHash());
+		if (i < 0)
+			return null;
+		int square = this.getMove(i);
+		if (square < 0)
+			return null;
+		square = Symmetry.transform(square, Symmetry.inverse(game.getCanonicalSymmetry()));
+		// guard against a hash collision with a position not in the book
+		if ((game.getMoves() & (1L << square)) == 0)
+			return null;
+		return new Move(square / 8, square % 8);
+	}
+
+	private ByteBuffer chunk(long i) {
+		return this.chunks[(int) (i >>> CHUNK_BITS)];
+	}
+
+	private int offset(long i) {
+		return (int) (i & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+	}
+
+	public long getHash(long i) {
+		return this.chunk(i).getLong(this.offset(i));
+	}
+
+	/**
+	 *
+	 * @return the score of record i for the player to move
+	 */
+	public int getScore(long i) {
+		return this.chunk(i).getShort(this.offset(i) + 8);
+	}
+
+	/**
+	 *
+	 * @return the move of record i as row*8+col in the canonical frame, -1 if
+	 *         there is none
+	 */
+	public int getMove(long i) {
+		return this.chunk(i).get(this.offset(i) + 10);
+	}
+
+	/**
+	 *
+	 * @return the depth that record i was searched to
+	 */
+	public int getDepth(long i) {
+		return this.chunk(i).get(this.offset(i) + 11) & 0xFF;
+	}
+
+	/**
+	 *
+	 * @return the number of positions in the book
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	public String toString() {
+		return "OpeningBook " + this.size + " positions";
+	}
+}
@@ -0,0 +1,191 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds an OpeningBook file. Entries are added one position at a time, kept in
+ * primitive arrays, and sorted by hash when the book is written, so a later
+ * entry for the same position replaces an earlier one.
+ *
+ * Run main to build a book by searching every position reachable in the first
+ * few moves of the game with an AlphaBetaSearch.
+ *
+ * @author Helena
+ *
+ */
+public class OpeningBookBuilder {
+	private long[] hashes = new long[1024];
+	private int[] entries = new int[1024]; // score in bits 0-15, move in 16-23, depth in 24-31
+	private int size = 0;
+
+	/**
+	 * Add a position to the book.
+	 *
+	 * @param hash  the position hash, Othello.getCanonicalHash
+	 * @param move  the best move as row*8+col, in the frame of the canonical
+	 *              form of the position
+	 * @param score the score of move for the player to move, in the range of a
+	 *              short
+	 * @param depth the depth searched
+	 */
+	public void add(long hash, int move, int score, int depth) {
+		if (this.size == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+			this.entries = Arrays.copyOf(this.entries, this.size * 2);
+		}
+		this.hashes[this.size] = hash;
+		this.entries[this.size] = (score & 0xFFFF) | ((move & 0xFF) << 16) | ((depth & 0xFF) << 24);
+		this.size++;
+	}
+
+	/**
+	 *
+	 * @return the number of entries added, including repeated positions
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Write the book, sorted by hash, with one record per position.
+	 *
+	 * @param file where to write the book
+	 * @return the number of positions written
+	 * @throws IOException
+	 */
+	public long write(Path file) throws IOException {
+		this.sort();
+		long count = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (i + 1 == this.size || this.hashes[i + 1] != this.hashes[i])
+				count++;
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(OpeningBook.VERSION);
+			out.writeLong(count);
+			for (int i = 0; i < this.size; i++) {
+				if (i + 1 < this.size && this.hashes[i + 1] == this.hashes[i])
+					continue; // the last entry added for a position wins
+				int entry = this.entries[i];
+				out.writeLong(this.hashes[i]);
+				out.writeShort(entry);
+				out.writeByte(entry >>> 16);
+				out.writeByte(entry >>> 24);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sort hashes and entries together by hash. The sort is stable for equal
+	 * hashes, so the entry added last for a position stays last.
+	 */
+	private void sort() {
+		// a merge sort of an index, so the two arrays move together
+		int[] order = new int[this.size];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		int[] buffer = new int[this.size];
+		this.mergeSort(order, buffer, 0, this.size);
+		long[] sortedHashes = new long[this.hashes.length];
+		int[] sortedEntries = new int[this.entries.length];
+		for (int i = 0; i < this.size; i++) {
+			sortedHashes[i] = this.hashes[order[i]];
+			sortedEntries[i] = this.entries[order[i]];
+		}
+		this.hashes = sortedHashes;
+		this.entries = sortedEntries;
+	}
+
+	private void mergeSort(int[] order, int[] buffer, int from, int to) {
+		if (to - from < 2)
+			return;
+		int mid = (from + to) >>> 1;
+		this.mergeSort(order, buffer, from, mid);
+		this.mergeSort(order, buffer, mid, to);
+		if (this.hashes[order[mid - 1]] <= this.hashes[order[mid]])
+			return; // already in order
+		System.arraycopy(order, from, buffer, from, to - from);
+		int i = from, j = mid;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < mid && this.hashes[buffer[i]] <= this.hashes[buffer[j]]))
+				order[k] = buffer[i++];
+			else
+				order[k] = buffer[j++];
+		}
+	}
+
+	/**
+	 * Search every position reachable in at most plies moves from game, and add
+	 * the best move of each to the book.
+	 *
+	 * @param game   the position to start from, it is not changed
+	 * @param plies  the number of moves to look ahead from game
+	 * @param depth  the depth to search each position to
+	 * @param search the search to use
+	 * @return the number of positions searched, counting symmetric positions
+	 *         once
+	 */
+	public int addPositions(Othello game, int plies, int depth, AlphaBetaSearch search) {
+		return this.addPositions(game.copy(), plies, depth, search, new HashSet<>());
+	}
+
+	private int addPositions(Othello game, int plies, int depth, AlphaBetaSearch search, Set<Long> seen) {
+		long hash = game.getCanonicalHash();
+		if (game.isGameOver() || !seen.add(hash))
+			return 0; // already searched, or a rotation or reflection of it was
+		int move = search.search(game, Long.MAX_VALUE / 2000000, Long.MAX_VALUE, depth);
+		if (move >= 0)
+			move = Symmetry.transform(move, game.getCanonicalSymmetry());
+		this.add(hash, move, search.getScore(), search.getDepthReached());
+		int count = 1;
+		if (plies > 0) {
+			char player = game.getWhosTurn();
+			for (long m = game.getMoves(); m != 0; m &= m - 1) {
+				int square = Long.numberOfTrailingZeros(m);
+				long flips = game.makeMove(square / 8, square % 8);
+				count += this.addPositions(game, plies - 1, depth, search, seen);
+				game.undoMove(square / 8, square % 8, flips, player);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Build a book of the positions in the first moves of the game.
+	 *
+	 * @param args the book file, the number of moves (default 6) and the search
+	 *             depth for each position (default 10)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: OpeningBookBuilder book-file [plies] [depth]");
+			System.exit(1);
+		}
+		Path file = Paths.get(args[0]);
+		int plies = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		long start = System.currentTimeMillis();
+		AlphaBetaSearch search = new AlphaBetaSearch(
+				new TranspositionTable(256 << 20, TranspositionTable.Replacement.DEPTH_PREFERRED));
+		search.setThreads(Runtime.getRuntime().availableProcessors());
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		int searched = builder.addPositions(new Othello(), plies, depth, search);
+		long written = builder.write(file);
+		System.out.println("searched " + searched + " positions to depth " + depth + ", wrote " + written
+				+ " to " + file + " in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
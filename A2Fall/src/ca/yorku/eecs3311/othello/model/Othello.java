@@ -2,8 +2,8 @@ package ca.yorku.eecs3311.othello.model;
 import ca.yorku.eecs3311.othello.command.*;
 import ca.yorku.eecs3311.util.*;
 import java.util.Random;
-import java.util.Stack;
 import java.io.*;
+import java.nio.file.Paths;
 
 /**
  * Capture an Othello game. This includes an OthelloBoard as well as knowledge
@@ -22,12 +22,27 @@ import java.io.*;
 public class Othello implements Serializable{
 	public static final int DIMENSION=8; // This is an 8x8 game
 
-	private OthelloBoard board=new OthelloBoard(Othello.DIMENSION);
+	private OthelloBoard board;
 	private GameHistory history = new GameHistory();
 	private char whosTurn = OthelloBoard.P1;
 	private int numMoves = 0;
-	private Stack<Othello> undoStack = new Stack<>();
-	private Stack<Othello> redoStack = new Stack<>();
+	// legal moves of each player in the current position, worked out once per move
+	private long p1Moves, p2Moves;
+	private boolean mobilityKnown = false;
+	// created by getEvents, so games no one watches carry no channel
+	private transient volatile EventChannel<OthelloEvent> events;
+
+	public Othello() {
+		this.board = new OthelloBitBoard();
+	}
+
+	/**
+	 * Used by copy(), which then fills in the board, so a new one is not created
+	 * here just to be replaced.
+	 */
+	private Othello(OthelloBoard board) {
+		this.board = board;
+	}
 
 	/**
 	 * return P1,P2 or EMPTY depending on who moves next.
@@ -48,6 +63,72 @@ public class Othello implements Serializable{
 		return this.board.get(row, col);
 	}
 
+	/**
+	 * The legal moves of both players are worked out once after each move, to
+	 * decide who moves next, and kept until the position changes.
+	 * 
+	 * @param player P1 or P2
+	 * @return the mask of legal moves for player, bit row*8+col is set if
+	 *         (row,col) is a legal move.
+	 */
+	public long getMoves(char player) {
+		if(!this.mobilityKnown) {
+			this.p1Moves = this.board.getMoves(OthelloBoard.P1);
+			this.p2Moves = this.board.getMoves(OthelloBoard.P2);
+			this.mobilityKnown = true;
+		}
+		if(player==OthelloBoard.P1)return this.p1Moves;
+		if(player==OthelloBoard.P2)return this.p2Moves;
+		return 0;
+	}
+
+	/**
+	 * 
+	 * @return the mask of legal moves for whosTurn, bit row*8+col is set if
+	 *         (row,col) is a legal move. 0 if the game is over.
+	 */
+	public long getMoves() {
+		return this.getMoves(this.whosTurn);
+	}
+
+	/**
+	 * Refill moves with the legal moves for whosTurn, without allocating anything.
+	 * 
+	 * @param moves the list to fill
+	 */
+	public void getMoves(MoveList moves) {
+		moves.setMoves(this.getMoves());
+	}
+
+	/**
+	 * 
+	 * @param row
+	 * @param col
+	 * @return the mask of tokens whosTurn would flip by moving to (row,col), 0
+	 *         if that is not a legal move
+	 */
+	public long getFlips(int row, int col) {
+		return this.board.getFlips(row, col, this.whosTurn);
+	}
+
+	/**
+	 * For tools in this package that work on boards directly, like Perft.
+	 * 
+	 * @return the board itself, not a copy
+	 */
+	OthelloBoard getBoard() {
+		return this.board;
+	}
+
+	/**
+	 * 
+	 * @param player P1 or P2
+	 * @return the mask of the tokens of player, bit row*8+col for (row,col)
+	 */
+	public long getTokens(char player) {
+		return this.board.getTokens(player);
+	}
+
 	/**
 	 * Attempt to make a move for P1 or P2 (depending on whos turn it is) at
 	 * position row, col. A side effect of this method is modification of whos turn
@@ -58,18 +139,109 @@ public class Othello implements Serializable{
 	 * @return whether the move was successfully made.
 	 */
 	public boolean move(int row, int col) {
-		if(this.board.move(row, col, this.whosTurn)) {
-			saveStateForUndo();
-			this.whosTurn = OthelloBoard.otherPlayer(this.whosTurn);
-			char allowedMove = board.hasMove();
-			if(allowedMove!=OthelloBoard.BOTH)this.whosTurn=allowedMove;
+		MoveCommand command = new MoveCommand(this.board, row, col, this.whosTurn);
+		if(this.history.executeCommand(command)) {
+			this.nextTurn();
 			this.numMoves++;
+			if(this.isWatched()) {
+				char player = command.getPlayer();
+				this.publishMove(new OthelloEvent.MoveMade(this, player, row * 8 + col, command.getFlips()), player);
+			}
 			return true;
 		} else {
 			return false;
 		}
 	}
 
+	/**
+	 * The channel on which the game publishes an OthelloEvent for every move,
+	 * pass, undo, redo and reset, and when the game ends. Moves made with
+	 * makeMove and undoMove, which players use to try out moves, are not
+	 * published.
+	 * 
+	 * @return the event channel of this game
+	 */
+	public EventChannel<OthelloEvent> getEvents() {
+		EventChannel<OthelloEvent> channel = this.events;
+		if(channel == null) {
+			synchronized(this) {
+				if(this.events == null)this.events = new EventChannel<>();
+				channel = this.events;
+			}
+		}
+		return channel;
+	}
+
+	private boolean isWatched() {
+		EventChannel<OthelloEvent> channel = this.events;
+		return channel != null && channel.hasSubscribers();
+	}
+
+	/**
+	 * Publish a move made or redone by player, followed by a Pass if the other
+	 * player has no move, or a GameOver if neither has.
+	 */
+	private void publishMove(OthelloEvent event, char player) {
+		this.events.publish(event);
+		if(this.whosTurn==OthelloBoard.EMPTY)this.events.publish(new OthelloEvent.GameOver(this));
+		else if(this.whosTurn==player)this.events.publish(new OthelloEvent.Pass(this, OthelloBoard.otherPlayer(player)));
+	}
+
+	/**
+	 * 
+	 * @return the number of moves made, passes not included
+	 */
+	public int getNumMoves() {
+		return this.numMoves;
+	}
+
+	/**
+	 * Make a move for whosTurn at (row,col), like move, except that nothing is
+	 * recorded for undo and the flipped tokens are returned instead. Together with
+	 * undoMove this lets a player try out moves on the game in place, without
+	 * copying it or allocating anything.
+	 * 
+	 * @param row
+	 * @param col
+	 * @return the mask of flipped tokens, 0 if the move is not legal, in which
+	 *         case nothing is changed
+	 */
+	public long makeMove(int row, int col) {
+		long flips = this.board.makeMove(row, col, this.whosTurn);
+		if(flips!=0) {
+			this.nextTurn();
+			this.numMoves++;
+		}
+		return flips;
+	}
+
+	/**
+	 * Take back a move made by makeMove. Moves must be taken back in the reverse
+	 * order they were made.
+	 * 
+	 * @param row    the row passed to makeMove
+	 * @param col    the col passed to makeMove
+	 * @param flips  the mask returned by makeMove
+	 * @param player whosTurn when makeMove was called
+	 */
+	public void undoMove(int row, int col, long flips, char player) {
+		this.board.undoMove(row, col, player, flips);
+		this.whosTurn = player;
+		this.numMoves--;
+		this.mobilityKnown = false;
+	}
+
+	/**
+	 * Hand the turn to the other player, unless they have no move, in which case
+	 * this player goes again. If neither player can move, whosTurn becomes EMPTY.
+	 */
+	private void nextTurn() {
+		this.mobilityKnown = false;
+		char other = OthelloBoard.otherPlayer(this.whosTurn);
+		if(this.getMoves(other)!=0)this.whosTurn=other;
+		else if(this.getMoves(this.whosTurn)==0)this.whosTurn=OthelloBoard.EMPTY;
+	}
+
 
 	/**
 	 * 
@@ -88,8 +260,9 @@ public class Othello implements Serializable{
 	 */
 	public char getWinner() {
 		if(!this.isGameOver())return OthelloBoard.EMPTY;
-		if(this.getCount(OthelloBoard.P1)> this.getCount(OthelloBoard.P2))return OthelloBoard.P1;
-		if(this.getCount(OthelloBoard.P1)< this.getCount(OthelloBoard.P2))return OthelloBoard.P2;
+		int p1Count = this.getCount(OthelloBoard.P1), p2Count = this.getCount(OthelloBoard.P2);
+		if(p1Count > p2Count)return OthelloBoard.P1;
+		if(p1Count < p2Count)return OthelloBoard.P2;
 		return OthelloBoard.EMPTY;
 	}
 
@@ -106,28 +279,39 @@ public class Othello implements Serializable{
 	 * Resets the game to its initial state.
 	 */
 	public void reset() {
-	    this.board = new OthelloBoard(Othello.DIMENSION);
+	    this.board = new OthelloBitBoard();
 	    this.whosTurn = OthelloBoard.P1;
 	    this.numMoves = 0;
-	    undoStack.clear();
-	    redoStack.clear();
+	    this.mobilityKnown = false;
+	    this.history.clear();
+	    if (this.isWatched()) this.events.publish(new OthelloEvent.Reset(this));
+	}
+
+	/**
+	 * Limit the number of moves kept for undo to the most recent maxMoves. The
+	 * current history is forgotten.
+	 * 
+	 * @param maxMoves the number of moves kept, 0 for no limit
+	 */
+	public void setHistoryLimit(int maxMoves) {
+		this.history = new GameHistory(maxMoves);
+		this.history.clear(this.board, this.whosTurn, this.numMoves);
 	}
 	
 	/**
-	 * Attempts to undo the last move.
+	 * Attempts to undo the last move. Only the flipped tokens are restored, in
+	 * O(flips).
 	 * @return true if undo was successful, false otherwise.
 	 */
 	public boolean undo() {
-	    if (!undoStack.isEmpty()) {
-	        redoStack.push(this.copy());
-	        Othello previousState = undoStack.pop();
-	        this.board = previousState.board.copy();
-	        this.whosTurn = previousState.whosTurn;
-	        this.numMoves = previousState.numMoves;
-	        this.whosTurn=OthelloBoard.otherPlayer(this.whosTurn);
-	        return true;
-	    }
-	    return false;
+	    MoveCommand command = this.history.undo(this.board);
+	    if (command == null) return false;
+	    this.whosTurn = command.getPlayer();
+	    this.numMoves--;
+	    this.mobilityKnown = false;
+	    if (this.isWatched()) this.events.publish(new OthelloEvent.Undo(this, command.getPlayer(),
+	            command.getRow() * 8 + command.getCol(), command.getFlips()));
+	    return true;
 	}
 
 	/**
@@ -135,41 +319,70 @@ public class Othello implements Serializable{
 	 * @return true if redo was successful, false otherwise.
 	 */
 	public boolean redo() {
-	    if (!redoStack.isEmpty()) {
-	        undoStack.push(this.copy());
-	        Othello nextState = redoStack.pop();
-	        this.board = nextState.board.copy();
-	        this.whosTurn = nextState.whosTurn;
-	        this.numMoves = nextState.numMoves;
-	        return true;
-	    }
-	    return false;
+	    MoveCommand command = this.history.redo(this.board);
+	    if (command == null) return false;
+	    this.whosTurn = command.getPlayer();
+	    this.nextTurn();
+	    this.numMoves++;
+	    if (this.isWatched()) this.publishMove(new OthelloEvent.Redo(this, command.getPlayer(),
+	            command.getRow() * 8 + command.getCol(), command.getFlips()), command.getPlayer());
+	    return true;
 	}
 
 	/**
-	 * Pushes the current game state onto the undo stack.
-	 * This should be called after every successful move.
+	 * Undo or redo moves until numMoves moves have been made, to step back and
+	 * forth through the game.
+	 * 
+	 * @param numMoves the number of moves to replay up to
+	 * @return whether the history reaches numMoves
 	 */
-	private void saveStateForUndo() {
-	    undoStack.push(this.copy());
-	    redoStack.clear(); // Clear the redo stack as redo is no longer valid after a new move
+	public boolean replay(int numMoves) {
+		while (this.numMoves > numMoves && this.undo());
+		while (this.numMoves < numMoves && this.redo());
+		return this.numMoves == numMoves;
 	}
 	
 	/**
-	 * Saves the current game state to a file.
+	 * Saves the current game state to a file, in the compact binary format of
+	 * GameFile: the start position and one byte per move.
 	 * @param filename the name of the file to save the game state.
 	 */
 	public void saveGame(String filename) throws IOException {
-	    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-	        out.writeObject(this);
-	    }
+		GameFile.save(this, Paths.get(filename));
 	}
 
 
-	public static Othello loadGame(String filename) throws IOException, ClassNotFoundException {
-	    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-	        return (Othello) in.readObject();
-	    }
+	/**
+	 * Loads a game saved by saveGame, replaying its moves up to the position
+	 * it was saved in. Undone moves can still be redone.
+	 * @param filename the name of the file to load the game state from.
+	 * @return the loaded game.
+	 * @throws IOException if the file can not be read or is not a saved game
+	 */
+	public static Othello loadGame(String filename) throws IOException {
+		return GameFile.load(Paths.get(filename));
+	}
+
+	/**
+	 * A game with no moves made yet from start, for GameFile.
+	 *
+	 * @param start    the position, not copied
+	 * @param whosTurn who moves next
+	 * @param numMoves the number of moves made to reach start
+	 */
+	static Othello startingFrom(OthelloBoard start, char whosTurn, int numMoves) {
+		Othello o = new Othello(start);
+		o.whosTurn = whosTurn;
+		o.numMoves = numMoves;
+		o.history.clear(start, whosTurn, numMoves);
+		return o;
+	}
+
+	/**
+	 * For GameFile, which saves the moves kept.
+	 */
+	GameHistory getHistory() {
+		return this.history;
 	}
 
 
@@ -178,17 +391,77 @@ public class Othello implements Serializable{
 	 * @return a copy of this. The copy can be manipulated without impacting this.
 	 */
 	public Othello copy() {
-		Othello o= new Othello();
-		o.board=this.board.copy();
+		Othello o= new Othello(this.board.copy());
 		o.numMoves = this.numMoves;
 		o.whosTurn = this.whosTurn;
+		o.p1Moves = this.p1Moves;
+		o.p2Moves = this.p2Moves;
+		o.mobilityKnown = this.mobilityKnown;
+		// the copy has no moves to undo, it starts from where this is
+		o.history.clear(this.board, this.whosTurn, this.numMoves);
 		return o;
 	}
 	
+	/**
+	 * The hash is kept up to date by every move, undo and redo, so this takes
+	 * constant time.
+	 * 
+	 * @return the Zobrist hash of the position, including who moves next
+	 */
+	public long getHash() {
+		return this.board.getHash() ^ Zobrist.side(this.whosTurn);
+	}
+
+	/**
+	 * Positions that are rotations or reflections of each other have the same
+	 * canonical hash, so books and indexes can store them once.
+	 * 
+	 * @return the Zobrist hash of the canonical form of the position, including
+	 *         who moves next (see Symmetry)
+	 */
+	public long getCanonicalHash() {
+		return Symmetry.canonicalHash(this.board.getTokens(OthelloBoard.P1), this.board.getTokens(OthelloBoard.P2),
+				this.whosTurn);
+	}
+
+	/**
+	 * 
+	 * @return the symmetry that takes the position to its canonical form. A move
+	 *         stored for the canonical form is played at
+	 *         Symmetry.transform(move, Symmetry.inverse(getCanonicalSymmetry())).
+	 */
+	public int getCanonicalSymmetry() {
+		return this.board.getCanonicalSymmetry();
+	}
+
+	/**
+	 * 
+	 * @return whether o is a game in the same position with the same player to
+	 *         move. The history and the number of moves made are not compared.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Othello)) return false;
+		Othello other = (Othello) o;
+		return this.whosTurn == other.whosTurn && this.board.equals(other.board);
+	}
+
+	@Override
+	public int hashCode() {
+		long hash = this.getHash();
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * The board keeps its token counts up to date, so this takes constant time.
+	 * CountTokensVisitor gives the same answer by scanning the board.
+	 * 
+	 * @param token P1, P2 or EMPTY
+	 * @return the number of squares holding token
+	 */
 	public int countTokens(char token) {
-        CountTokensVisitor visitor = new CountTokensVisitor(token);
-        board.accept(visitor);
-        return visitor.getCount();
+        return board.getCount(token);
     }
 	
 	
@@ -0,0 +1,318 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * An 8x8 OthelloBoard that keeps the tokens of each player as a 64 bit mask
+ * instead of a char[][]. Square (row,col) is bit row*8+col of the mask.
+ *
+ * All legal moves for a player are found at once by shifting the players
+ * tokens over runs of the opponents tokens in each of the 8 directions, and
+ * the tokens flipped by a move are found the same way starting from the
+ * square moved to. This gives the same results as the ray walking in
+ * OthelloBoard, just much faster, so it can be used anywhere an OthelloBoard
+ * is expected.
+ *
+ * @author Helena
+ *
+ */
+public class OthelloBitBoard extends OthelloBoard {
+	private static final long serialVersionUID = 1L;
+
+	// columns 1 to 6, a run of tokens through these can not wrap around a row
+	private static final long INNER_COLS = 0x7E7E7E7E7E7E7E7EL;
+
+	private long p1, p2; // tokens of P1 and P2
+	private long hash; // Zobrist hash of p1 and p2
+
+	/**
+	 * An 8x8 board in the initial position, with P1 on (3,3),(4,4) and P2 on
+	 * (3,4),(4,3).
+	 */
+	public OthelloBitBoard() {
+		super();
+		this.p1 = bit(3, 3) | bit(4, 4);
+		this.p2 = bit(3, 4) | bit(4, 3);
+		this.hash = Zobrist.hash(this.p1, this.p2);
+	}
+
+	/**
+	 * A board in any position.
+	 *
+	 * @param p1 the tokens of P1, bit row*8+col for (row,col)
+	 * @param p2 the tokens of P2, none on the same square as p1
+	 */
+	public OthelloBitBoard(long p1, long p2) {
+		super();
+		if ((p1 & p2) != 0)
+			throw new IllegalArgumentException("P1 and P2 can not share a square");
+		this.p1 = p1;
+		this.p2 = p2;
+		this.hash = Zobrist.hash(this.p1, this.p2);
+	}
+
+	/**
+	 *
+	 * @return a copy of this
+	 */
+	@Override
+	public OthelloBitBoard copy() {
+		OthelloBitBoard ob = new OthelloBitBoard();
+		ob.p1 = this.p1;
+		ob.p2 = this.p2;
+		ob.hash = this.hash;
+		return ob;
+	}
+
+	/**
+	 *
+	 * @param row starting row, in {0,...,7}
+	 * @param col starting col, in {0,...,7}
+	 * @return P1,P2 or EMPTY, EMPTY is returned for an invalid (row,col)
+	 */
+	@Override
+	public char get(int row, int col) {
+		if (!this.validCoordinate(row, col))
+			return EMPTY;
+		long b = bit(row, col);
+		if ((this.p1 & b) != 0)
+			return P1;
+		if ((this.p2 & b) != 0)
+			return P2;
+		return EMPTY;
+	}
+
+	/**
+	 *
+	 * @return whether P1,P2 or BOTH have a move somewhere on the board, EMPTY if
+	 *         neither do.
+	 */
+	@Override
+	public char hasMove() {
+		boolean p1Moves = moves(this.p1, this.p2) != 0;
+		boolean p2Moves = moves(this.p2, this.p1) != 0;
+		if (p1Moves && p2Moves)
+			return BOTH;
+		if (p1Moves)
+			return P1;
+		if (p2Moves)
+			return P2;
+		return EMPTY;
+	}
+
+	@Override
+	public long getTokens(char player) {
+		if (player == P1)
+			return this.p1;
+		if (player == P2)
+			return this.p2;
+		return 0;
+	}
+
+	@Override
+	public long getMoves(char player) {
+		if (player == P1)
+			return moves(this.p1, this.p2);
+		if (player == P2)
+			return moves(this.p2, this.p1);
+		return 0;
+	}
+
+	@Override
+	public long getFlips(int row, int col, char player) {
+		if (!this.validCoordinate(row, col) || (player != P1 && player != P2))
+			return 0;
+		int square = row * 8 + col;
+		if (((this.p1 | this.p2) & (1L << square)) != 0)
+			return 0;
+		if (player == P1)
+			return flips(square, this.p1, this.p2);
+		return flips(square, this.p2, this.p1);
+	}
+
+	/**
+	 * Make a move for player at position (row,col) according to Othello rules,
+	 * making appropriate modifications to the board. Nothing is changed if this is
+	 * not a valid move.
+	 *
+	 * @param row    starting row, in {0,...,7}
+	 * @param col    starting col, in {0,...,7}
+	 * @param player P1 or P2
+	 * @return true if player moved successfully at (row,col), false otherwise
+	 */
+	@Override
+	public boolean move(int row, int col, char player) {
+		return this.makeMove(row, col, player) != 0;
+	}
+
+	@Override
+	public long makeMove(int row, int col, char player) {
+		long flipped = this.getFlips(row, col, player);
+		if (flipped == 0)
+			return 0;
+		long b = bit(row, col);
+		if (player == P1) {
+			this.p1 |= flipped | b;
+			this.p2 &= ~flipped;
+		} else {
+			this.p2 |= flipped | b;
+			this.p1 &= ~flipped;
+		}
+		this.hash ^= Zobrist.key(player, row * 8 + col) ^ Zobrist.flipKey(flipped);
+		return flipped;
+	}
+
+	@Override
+	public void undoMove(int row, int col, char player, long flips) {
+		long b = bit(row, col);
+		if (player == P1) {
+			this.p1 &= ~(flips | b);
+			this.p2 |= flips;
+		} else {
+			this.p2 &= ~(flips | b);
+			this.p1 |= flips;
+		}
+		this.hash ^= Zobrist.key(player, row * 8 + col) ^ Zobrist.flipKey(flips);
+	}
+
+	/**
+	 *
+	 * @param player P1 or P2
+	 * @return the number of tokens on the board for player
+	 */
+	@Override
+	public int getCount(char player) {
+		if (player == P1)
+			return Long.bitCount(this.p1);
+		if (player == P2)
+			return Long.bitCount(this.p2);
+		if (player == EMPTY)
+			return 64 - Long.bitCount(this.p1 | this.p2);
+		return 0;
+	}
+
+	@Override
+	public void removeToken(int row, int col) {
+		if (this.validCoordinate(row, col)) {
+			long b = bit(row, col);
+			this.hash ^= Zobrist.key(this.get(row, col), row * 8 + col);
+			this.p1 &= ~b;
+			this.p2 &= ~b;
+		}
+	}
+
+	@Override
+	public long getHash() {
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof OthelloBitBoard) {
+			OthelloBitBoard other = (OthelloBitBoard) o;
+			return this.p1 == other.p1 && this.p2 == other.p2;
+		}
+		return super.equals(o);
+	}
+
+
+	/**
+	 *
+	 * @param row in {0,...,7}
+	 * @param col in {0,...,7}
+	 * @return the mask with only square (row,col) set
+	 */
+	private static long bit(int row, int col) {
+		return 1L << (row * 8 + col);
+	}
+
+	/**
+	 * All squares where the player owning own can move, when the opponent owns
+	 * opp. For each direction, the runs of opponent tokens adjacent to own are
+	 * grown one square at a time (at most 6 opponent tokens fit between two
+	 * squares), and an empty square just past a run is a move.
+	 *
+	 * @param own the tokens of the player to move
+	 * @param opp the tokens of the opponent
+	 * @return the mask of legal moves for the player owning own
+	 */
+	public static long moves(long own, long opp) {
+		long empty = ~(own | opp);
+		long h = opp & INNER_COLS;
+		long moves = 0, t;
+
+		t = h & (own << 1); t |= h & (t << 1); t |= h & (t << 1);
+		t |= h & (t << 1); t |= h & (t << 1); t |= h & (t << 1);
+		moves |= t << 1;
+		t = h & (own >>> 1); t |= h & (t >>> 1); t |= h & (t >>> 1);
+		t |= h & (t >>> 1); t |= h & (t >>> 1); t |= h & (t >>> 1);
+		moves |= t >>> 1;
+
+		t = opp & (own << 8); t |= opp & (t << 8); t |= opp & (t << 8);
+		t |= opp & (t << 8); t |= opp & (t << 8); t |= opp & (t << 8);
+		moves |= t << 8;
+		t = opp & (own >>> 8); t |= opp & (t >>> 8); t |= opp & (t >>> 8);
+		t |= opp & (t >>> 8); t |= opp & (t >>> 8); t |= opp & (t >>> 8);
+		moves |= t >>> 8;
+
+		t = h & (own << 9); t |= h & (t << 9); t |= h & (t << 9);
+		t |= h & (t << 9); t |= h & (t << 9); t |= h & (t << 9);
+		moves |= t << 9;
+		t = h & (own >>> 9); t |= h & (t >>> 9); t |= h & (t >>> 9);
+		t |= h & (t >>> 9); t |= h & (t >>> 9); t |= h & (t >>> 9);
+		moves |= t >>> 9;
+
+		t = h & (own << 7); t |= h & (t << 7); t |= h & (t << 7);
+		t |= h & (t << 7); t |= h & (t << 7); t |= h & (t << 7);
+		moves |= t << 7;
+		t = h & (own >>> 7); t |= h & (t >>> 7); t |= h & (t >>> 7);
+		t |= h & (t >>> 7); t |= h & (t >>> 7); t |= h & (t >>> 7);
+		moves |= t >>> 7;
+
+		return moves & empty;
+	}
+
+	/**
+	 * The opponent tokens flipped when the player owning own moves to square. The
+	 * board is not modified. For each direction, the run of opponent tokens
+	 * starting next to square is flipped only if it ends at one of own.
+	 *
+	 * @param square row*8+col of an empty square
+	 * @param own    the tokens of the player to move
+	 * @param opp    the tokens of the opponent
+	 * @return the mask of flipped tokens, 0 if moving to square is not legal
+	 */
+	public static long flips(int square, long own, long opp) {
+		long b = 1L << square;
+		long h = opp & INNER_COLS;
+		long flipped = 0, t;
+
+		t = h & (b << 1); t |= h & (t << 1); t |= h & (t << 1);
+		t |= h & (t << 1); t |= h & (t << 1); t |= h & (t << 1);
+		if ((own & (t << 1)) != 0) flipped |= t;
+		t = h & (b >>> 1); t |= h & (t >>> 1); t |= h & (t >>> 1);
+		t |= h & (t >>> 1); t |= h & (t >>> 1); t |= h & (t >>> 1);
+		if ((own & (t >>> 1)) != 0) flipped |= t;
+
+		t = opp & (b << 8); t |= opp & (t << 8); t |= opp & (t << 8);
+		t |= opp & (t << 8); t |= opp & (t << 8); t |= opp & (t << 8);
+		if ((own & (t << 8)) != 0) flipped |= t;
+		t = opp & (b >>> 8); t |= opp & (t >>> 8); t |= opp & (t >>> 8);
+		t |= opp & (t >>> 8); t |= opp & (t >>> 8); t |= opp & (t >>> 8);
+		if ((own & (t >>> 8)) != 0) flipped |= t;
+
+		t = h & (b << 9); t |= h & (t << 9); t |= h & (t << 9);
+		t |= h & (t << 9); t |= h & (t << 9); t |= h & (t << 9);
+		if ((own & (t << 9)) != 0) flipped |= t;
+		t = h & (b >>> 9); t |= h & (t >>> 9); t |= h & (t >>> 9);
+		t |= h & (t >>> 9); t |= h & (t >>> 9); t |= h & (t >>> 9);
+		if ((own & (t >>> 9)) != 0) flipped |= t;
+
+		t = h & (b << 7); t |= h & (t << 7); t |= h & (t << 7);
+		t |= h & (t << 7); t |= h & (t << 7); t |= h & (t << 7);
+		if ((own & (t << 7)) != 0) flipped |= t;
+		t = h & (b >>> 7); t |= h & (t >>> 7); t |= h & (t >>> 7);
+		t |= h & (t >>> 7); t |= h & (t >>> 7); t |= h & (t >>> 7);
+		if ((own & (t >>> 7)) != 0) flipped |= t;
+
+		return flipped;
+	}
+}
@@ -21,6 +21,9 @@ public class OthelloBoard implements Serializable{
 	public static final char EMPTY = ' ', P1 = 'X', P2 = 'O', BOTH = 'B';
 	private int dim = 8;
 	private char[][] board;
+	// running token counts, kept up to date by every change to board
+	private int p1Count, p2Count, emptyCount;
+	private long hash; // Zobrist hash of the tokens, also kept up to date by set
 
 	public OthelloBoard(int dim) {
 		this.dim = dim;
@@ -33,6 +36,17 @@ public class OthelloBoard implements Serializable{
 		int mid = this.dim / 2;
 		this.board[mid - 1][mid - 1] = this.board[mid][mid] = P1;
 		this.board[mid][mid - 1] = this.board[mid - 1][mid] = P2;
+		this.p1Count = this.p2Count = 2;
+		this.emptyCount = this.dim * this.dim - 4;
+		this.hash = this.key(P1, mid - 1, mid - 1) ^ this.key(P1, mid, mid) ^ this.key(P2, mid, mid - 1)
+				^ this.key(P2, mid - 1, mid);
+	}
+
+	/**
+	 * Used by subclasses that keep the tokens in their own representation
+	 * (see OthelloBitBoard). No char[][] is allocated, the dimension is 8.
+	 */
+	protected OthelloBoard() {
 	}
 	
 	/**
@@ -54,6 +68,10 @@ public class OthelloBoard implements Serializable{
 				ob.board[row][col] = this.board[row][col];
 			}
 		}
+		ob.p1Count = this.p1Count;
+		ob.p2Count = this.p2Count;
+		ob.emptyCount = this.emptyCount;
+		ob.hash = this.hash;
 		return ob;
 	}
 
@@ -93,7 +111,7 @@ public class OthelloBoard implements Serializable{
 	 * @return whether (row,col) is a position on the board. Example: (6,12) is not
 	 *         a position on the board with dim 8x8.
 	 */
-	private boolean validCoordinate(int row, int col) {
+	protected boolean validCoordinate(int row, int col) {
 		return 0 <= row && row < this.dim && 0 <= col && col < this.dim;
 	}
 	/**
@@ -121,7 +139,7 @@ public class OthelloBoard implements Serializable{
 		if (this.board[row][col] == this.otherPlayer(player)) {
 			int numChanged = this.flip(row + drow, col + dcol, drow, dcol, player);
 			if (numChanged >= 0) {
-				this.board[row][col] = player;
+				this.set(row, col, player);
 				return numChanged + 1;
 			} else {
 				return numChanged;
@@ -169,7 +187,7 @@ public class OthelloBoard implements Serializable{
 	 * @return P1,P2,EMPTY
 	 */
 	public char hasMove(int row, int col, int drow, int dcol) {
-		if (!this.validCoordinate(row, col) || this.board[row][col] != this.EMPTY)
+		if (!this.validCoordinate(row, col) || this.get(row, col) != EMPTY)
 			return this.EMPTY;
 		return this.alternation(row + drow, col + dcol, drow, dcol);
 	}
@@ -201,6 +219,88 @@ public class OthelloBoard implements Serializable{
 		return retVal;
 	}
 
+	/**
+	 * All legal moves for player as a mask, where bit row*8+col is set if player
+	 * can move to (row,col). Only boards up to 8x8 fit in the mask.
+	 * 
+	 * @param player P1 or P2
+	 * @return the mask of legal moves for player
+	 */
+	public long getMoves(char player) {
+		if (player != P1 && player != P2)
+			return 0;
+		long moves = 0;
+		for (int row = 0; row < this.dim; row++) {
+			for (int col = 0; col < this.dim; col++) {
+				if (this.getFlips(row, col, player) != 0)
+					moves |= 1L << (row * 8 + col);
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * 
+	 * @param player P1 or P2
+	 * @return a mask with bit row*8+col set for each token of player. Only boards
+	 *         up to 8x8 fit in the mask.
+	 */
+	public long getTokens(char player) {
+		long tokens = 0;
+		for (int row = 0; row < this.dim; row++) {
+			for (int col = 0; col < this.dim; col++) {
+				if (this.get(row, col) == player)
+					tokens |= 1L << (row * 8 + col);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Refill moves with the legal moves for player, without allocating anything.
+	 * 
+	 * @param player P1 or P2
+	 * @param moves  the list to fill, its previous contents are discarded
+	 */
+	public void getMoves(char player, MoveList moves) {
+		moves.setMoves(this.getMoves(player));
+	}
+
+	/**
+	 * The tokens that would be flipped if player moved to (row,col). The board is
+	 * not modified.
+	 * 
+	 * @param row    in {0,...,dim-1} (typically {0,...,7})
+	 * @param col    in {0,...,dim-1} (typically {0,...,7})
+	 * @param player P1 or P2
+	 * @return a mask with bit row*8+col set for each flipped token, 0 if this is
+	 *         not a valid move
+	 */
+	public long getFlips(int row, int col, char player) {
+		if (!this.validCoordinate(row, col) || this.get(row, col) != EMPTY)
+			return 0;
+		if (player != P1 && player != P2)
+			return 0; // the other player would be EMPTY, which runs off the board
+		char other = otherPlayer(player);
+		long flips = 0;
+		for (int drow = -1; drow <= 1; drow++) {
+			for (int dcol = -1; dcol <= 1; dcol++) {
+				if (drow == 0 && dcol == 0)
+					continue;
+				long run = 0;
+				int r = row + drow, c = col + dcol;
+				while (this.get(r, c) == other) {
+					run |= 1L << (r * 8 + c);
+					r += drow;
+					c += dcol;
+				}
+				if (this.get(r, c) == player)
+					flips |= run;
+			}
+		}
+		return flips;
+	}
+
 	/**
 	 * Make a move for player at position (row,col) according to Othello rules,
 	 * making appropriate modifications to the board. Nothing is changed if this is
@@ -229,31 +329,153 @@ public class OthelloBoard implements Serializable{
 			}
 		}
 		if (numChangedTotal > 0) {
-			this.board[row][col] = player;
+			this.set(row, col, player);
 			return true;
 		}
 		return false;
 	}
 
 	/**
+	 * Put token on (row,col), keeping the token counts up to date.
 	 * 
-	 * @param player P1 or P2
-	 * @return the number of tokens on the board for player
+	 * @param row   in {0,...,dim-1}, (row,col) must be on the board
+	 * @param col   in {0,...,dim-1}
+	 * @param token P1, P2 or EMPTY
 	 */
-	public int getCount(char player) {
-		int count = 0;
-		for (int row = 0; row < this.dim; row++) {
-			for (int col = 0; col < this.dim; col++) {
-				if (board[row][col] == player)
-					count++;
+	private void set(int row, int col, char token) {
+		this.adjustCount(this.board[row][col], -1);
+		this.adjustCount(token, 1);
+		this.hash ^= this.key(this.board[row][col], row, col) ^ this.key(token, row, col);
+		this.board[row][col] = token;
+	}
+
+	/**
+	 * 
+	 * @return the Zobrist key of token on (row,col), 0 on boards larger than 8x8,
+	 *         which have no keys
+	 */
+	private long key(char token, int row, int col) {
+		if (this.dim > 8)
+			return 0;
+		return Zobrist.key(token, row * 8 + col);
+	}
+
+	/**
+	 * The hash is kept up to date as tokens are placed and flipped, so this takes
+	 * constant time. Boards holding the same tokens have the same hash.
+	 * 
+	 * @return the Zobrist hash of the tokens on the board (see Zobrist)
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * 
+	 * @return the symmetry that takes this board to its canonical form, see
+	 *         Symmetry
+	 */
+	public int getCanonicalSymmetry() {
+		return Symmetry.canonical(this.getTokens(P1), this.getTokens(P2));
+	}
+
+	/**
+	 * 
+	 * @return whether o is a board of the same dimension with the same tokens
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof OthelloBoard))
+			return false;
+		OthelloBoard other = (OthelloBoard) o;
+		if (this.getHash() != other.getHash() || this.getDimension() != other.getDimension())
+			return false;
+		for (int row = 0; row < this.getDimension(); row++) {
+			for (int col = 0; col < this.getDimension(); col++) {
+				if (this.get(row, col) != other.get(row, col))
+					return false;
 			}
 		}
-		return count;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		long hash = this.getHash();
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private void adjustCount(char token, int delta) {
+		if (token == P1)
+			this.p1Count += delta;
+		else if (token == P2)
+			this.p2Count += delta;
+		else if (token == EMPTY)
+			this.emptyCount += delta;
+	}
+
+	/**
+	 * Make a move like move(row,col,player), but return the flipped tokens so
+	 * that undoMove can restore the board exactly.
+	 * 
+	 * @param row    in {0,...,dim-1} (typically {0,...,7})
+	 * @param col    in {0,...,dim-1} (typically {0,...,7})
+	 * @param player P1 or P2
+	 * @return the mask of flipped tokens, 0 if this is not a valid move, in which
+	 *         case nothing is changed
+	 */
+	public long makeMove(int row, int col, char player) {
+		long flips = this.getFlips(row, col, player);
+		if (flips == 0)
+			return 0;
+		for (long f = flips; f != 0; f &= f - 1) {
+			int square = Long.numberOfTrailingZeros(f);
+			this.set(square / 8, square % 8, player);
+		}
+		this.set(row, col, player);
+		return flips;
+	}
+
+	/**
+	 * Take back a move made by makeMove. Only the moved to square and the flipped
+	 * tokens are touched.
+	 * 
+	 * @param row    the row passed to makeMove
+	 * @param col    the col passed to makeMove
+	 * @param player the player passed to makeMove
+	 * @param flips  the mask returned by makeMove
+	 */
+	public void undoMove(int row, int col, char player, long flips) {
+		char other = otherPlayer(player);
+		for (long f = flips; f != 0; f &= f - 1) {
+			int square = Long.numberOfTrailingZeros(f);
+			this.set(square / 8, square % 8, other);
+		}
+		this.set(row, col, EMPTY);
+	}
+
+	/**
+	 * The counts are maintained as the board changes, so this takes constant time.
+	 * 
+	 * @param player P1, P2 or EMPTY
+	 * @return the number of tokens on the board for player, or the number of
+	 *         empty squares for EMPTY
+	 */
+	public int getCount(char player) {
+		if (player == P1)
+			return this.p1Count;
+		if (player == P2)
+			return this.p2Count;
+		if (player == EMPTY)
+			return this.emptyCount;
+		return 0;
 	}
 	
 	public void removeToken(int row, int col) {
 	    if (validCoordinate(row, col)) {
-	        board[row][col] = EMPTY;
+	        this.set(row, col, EMPTY);
 	    }
 	}
 	
@@ -282,7 +504,7 @@ public class OthelloBoard implements Serializable{
 		for (int row = 0; row < this.dim; row++) {
 			s += row + "|";
 			for (int col = 0; col < this.dim; col++) {
-				s += board[row][col] + "|";
+				s += this.get(row, col) + "|";
 			}
 			s += row + "\n";
 
@@ -312,7 +534,7 @@ public class OthelloBoard implements Serializable{
 		System.out.println("getCount(P2)=" + ob.getCount(P2));
 		for (int row = 0; row < ob.dim; row++) {
 			for (int col = 0; col < ob.dim; col++) {
-				ob.board[row][col] = P1;
+				ob.set(row, col, P1);
 			}
 		}
 		System.out.println(ob.toString());
@@ -329,7 +551,7 @@ public class OthelloBoard implements Serializable{
 		for (int row = 0; row < ob.dim; row++) {
 			for (int col = 0; col < ob.dim; col++) {
 				if (row == 0 || col == 0) {
-					ob.board[row][col] = P2;
+					ob.set(row, col, P2);
 				}
 			}
 		}
@@ -346,8 +568,8 @@ public class OthelloBoard implements Serializable{
 		// Can't move to (4,4) since the square is not empty
 		System.out.println("Trying to move to (4,4) move=" + ob.move(4, 4, P2));
 
-		ob.board[4][4] = EMPTY;
-		ob.board[2][4] = EMPTY;
+		ob.set(4, 4, EMPTY);
+		ob.set(2, 4, EMPTY);
 
 		System.out.println(ob.toString());
 
@@ -366,14 +588,14 @@ public class OthelloBoard implements Serializable{
 		ob = new OthelloBoard(Othello.DIMENSION);
 		for(int row=0;row<Othello.DIMENSION;row++) {
 			for(int col=0;col<Othello.DIMENSION;col++) {
-				if(row>col)ob.board[row][col]=EMPTY;
-				else ob.board[row][col]=P2;
-				if(col==Othello.DIMENSION-1)ob.board[row][col]=P1;
+				if(row>col)ob.set(row, col, EMPTY);
+				else ob.set(row, col, P2);
+				if(col==Othello.DIMENSION-1)ob.set(row, col, P1);
 			}
 		}
-		ob.board[0][7]=EMPTY;
-		ob.board[1][7]=P2;
-		ob.board[4][4]=P1;
+		ob.set(0, 7, EMPTY);
+		ob.set(1, 7, P2);
+		ob.set(4, 4, P1);
 		System.out.println(ob.toString());
 
 		System.out.println("Testing flip method: flipping");
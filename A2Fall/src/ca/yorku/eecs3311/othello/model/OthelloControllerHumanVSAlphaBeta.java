@@ -0,0 +1,36 @@
+package ca.yorku.eecs3311.othello.model;
+/**
+ * This controller uses the Model classes to allow the Human player P1 to play
+ * the computer P2. The computer, P2 searches ahead with alpha-beta. 
+ * 
+ * @author Helena
+ *
+ */
+public class OthelloControllerHumanVSAlphaBeta extends OthelloControllerVerbose {
+
+	public OthelloControllerHumanVSAlphaBeta() {
+		super();
+		this.player1 = new PlayerHuman(this.othello, OthelloBoard.P1);
+		this.player2 = new PlayerAlphaBeta(this.othello, OthelloBoard.P2);
+	}
+
+	/**
+	 * Also report how deep the computer searched, and how fast.
+	 */
+	@Override
+	protected void reportMove(char whosTurn, Move move) {
+		if (whosTurn == this.player2.getPlayer() && this.player2 instanceof PlayerAlphaBeta)
+			System.out.println(((PlayerAlphaBeta) this.player2).getSearchInfo());
+		super.reportMove(whosTurn, move);
+	}
+
+	/**
+	 * Run main to play a Human (P1) against the computer P2. 
+	 * The computer searches ahead for about a second per move.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		OthelloControllerHumanVSAlphaBeta oc = new OthelloControllerHumanVSAlphaBeta();
+		oc.play();
+	}
+}
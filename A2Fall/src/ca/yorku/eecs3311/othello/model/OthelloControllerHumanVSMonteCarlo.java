@@ -0,0 +1,37 @@
+package ca.yorku.eecs3311.othello.model;
+/**
+ * This controller uses the Model classes to allow the Human player P1 to play
+ * the computer P2. The computer, P2 plays out random games with Monte Carlo
+ * Tree Search. 
+ * 
+ * @author Helena
+ *
+ */
+public class OthelloControllerHumanVSMonteCarlo extends OthelloControllerVerbose {
+
+	public OthelloControllerHumanVSMonteCarlo() {
+		super();
+		this.player1 = new PlayerHuman(this.othello, OthelloBoard.P1);
+		this.player2 = new PlayerMonteCarlo(this.othello, OthelloBoard.P2);
+	}
+
+	/**
+	 * Also report how many games the computer played out, and how fast.
+	 */
+	@Override
+	protected void reportMove(char whosTurn, Move move) {
+		if (whosTurn == this.player2.getPlayer() && this.player2 instanceof PlayerMonteCarlo)
+			System.out.println(((PlayerMonteCarlo) this.player2).getSearchInfo());
+		super.reportMove(whosTurn, move);
+	}
+
+	/**
+	 * Run main to play a Human (P1) against the computer P2. 
+	 * The computer plays out games for about a second per move.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		OthelloControllerHumanVSMonteCarlo oc = new OthelloControllerHumanVSMonteCarlo();
+		oc.play();
+	}
+}
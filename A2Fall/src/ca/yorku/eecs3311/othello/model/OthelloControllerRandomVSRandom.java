@@ -25,18 +25,17 @@ public class OthelloControllerRandomVSRandom extends OthelloController {
 	 * Output looks like 
 	 * Probability P1 wins=.75 
 	 * Probability P2 wins=.20
-	 * @param args
+	 * The games are played by a Tournament, on all cores, followed by the
+	 * confidence intervals and the games per second.
+	 * @param args the number of games, 10000 by default
 	 */
 	public static void main(String[] args) {
-		int p1wins=0, p2wins=0, numGames=10000;
-		for(int i=0;i<numGames;i++) {
-			OthelloControllerRandomVSRandom oc = new OthelloControllerRandomVSRandom();
-			oc.play();
-			if(oc.othello.getWinner()==OthelloBoard.P1)p1wins++;
-			if(oc.othello.getWinner()==OthelloBoard.P2)p2wins++;
-		}
-		System.out.println("Probability P1 wins="+(float)p1wins/numGames);
-		System.out.println("Probability P2 wins="+(float)p2wins/numGames);
+		int numGames = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		Tournament tournament = new Tournament(PlayerRandom::new, PlayerRandom::new);
+		tournament.play(numGames);
+		System.out.println("Probability P1 wins="+(float)tournament.getP1Wins()/numGames);
+		System.out.println("Probability P2 wins="+(float)tournament.getP2Wins()/numGames);
+		System.out.println(tournament);
 	}
 }
 
@@ -0,0 +1,250 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * Something that happened to an Othello game, published on its event channel
+ * (Othello.getEvents). Each event also holds the position right after it, so
+ * a subscriber on another thread can show the game without reading the
+ * Othello, which may have moved on, and a subscriber that only shows the
+ * current position can keep the latest event and drop the rest.
+ *
+ * Events are immutable.
+ *
+ * @author Helena
+ *
+ */
+public abstract class OthelloEvent {
+	private final long p1, p2;
+	private final char whosTurn;
+	private final int numMoves;
+
+	OthelloEvent(long p1, long p2, char whosTurn, int numMoves) {
+		this.p1 = p1;
+		this.p2 = p2;
+		this.whosTurn = whosTurn;
+		this.numMoves = numMoves;
+	}
+
+	/**
+	 *
+	 * @return P1, P2 or EMPTY, who moves next after this event
+	 */
+	public char getWhosTurn() {
+		return this.whosTurn;
+	}
+
+	/**
+	 *
+	 * @return the number of moves made after this event
+	 */
+	public int getNumMoves() {
+		return this.numMoves;
+	}
+
+	/**
+	 *
+	 * @param player P1 or P2
+	 * @return the tokens of player after this event, bit row*8+col for (row,col)
+	 */
+	public long getTokens(char player) {
+		return player == OthelloBoard.P1 ? this.p1 : player == OthelloBoard.P2 ? this.p2 : 0;
+	}
+
+	/**
+	 *
+	 * @return P1, P2 or EMPTY, the token at (row,col) after this event
+	 */
+	public char getToken(int row, int col) {
+		long bit = 1L << (row * 8 + col);
+		return (this.p1 & bit) != 0 ? OthelloBoard.P1 : (this.p2 & bit) != 0 ? OthelloBoard.P2 : OthelloBoard.EMPTY;
+	}
+
+	/**
+	 *
+	 * @param player P1 or P2
+	 * @return the number of tokens of player after this event
+	 */
+	public int getCount(char player) {
+		return Long.bitCount(this.getTokens(player));
+	}
+
+	/**
+	 * A move was made, by Othello.move.
+	 */
+	public static class MoveMade extends OthelloEvent {
+		private final char player;
+		private final int square;
+		private final long flips;
+
+		MoveMade(Othello game, char player, int square, long flips) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+			this.player = player;
+			this.square = square;
+			this.flips = flips;
+		}
+
+		public char getPlayer() {
+			return this.player;
+		}
+
+		/**
+		 *
+		 * @return where the token was placed, row*8+col
+		 */
+		public int getSquare() {
+			return this.square;
+		}
+
+		/**
+		 *
+		 * @return the tokens flipped, bit row*8+col for (row,col)
+		 */
+		public long getFlips() {
+			return this.flips;
+		}
+
+		public String toString() {
+			return "MoveMade " + this.player + " (" + this.square / 8 + "," + this.square % 8 + ") flips "
+					+ Long.bitCount(this.flips);
+		}
+	}
+
+	/**
+	 * A player has no move, so the other player moves again. Follows the
+	 * MoveMade or Redo that left the player with no move.
+	 */
+	public static class Pass extends OthelloEvent {
+		private final char player;
+
+		Pass(Othello game, char player) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+			this.player = player;
+		}
+
+		/**
+		 *
+		 * @return the player who must pass
+		 */
+		public char getPlayer() {
+			return this.player;
+		}
+
+		public String toString() {
+			return "Pass " + this.player;
+		}
+	}
+
+	/**
+	 * Neither player can move. Follows the MoveMade or Redo that ended the game.
+	 */
+	public static class GameOver extends OthelloEvent {
+		private final char winner;
+
+		GameOver(Othello game) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+			this.winner = game.getWinner();
+		}
+
+		/**
+		 *
+		 * @return P1, P2 or EMPTY for a draw
+		 */
+		public char getWinner() {
+			return this.winner;
+		}
+
+		public String toString() {
+			return "GameOver " + (this.winner == OthelloBoard.EMPTY ? "draw" : this.winner + " wins");
+		}
+	}
+
+	/**
+	 * A move was undone, by Othello.undo.
+	 */
+	public static class Undo extends OthelloEvent {
+		private final char player;
+		private final int square;
+		private final long flips;
+
+		Undo(Othello game, char player, int square, long flips) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+			this.player = player;
+			this.square = square;
+			this.flips = flips;
+		}
+
+		public char getPlayer() {
+			return this.player;
+		}
+
+		/**
+		 *
+		 * @return where the token was removed, row*8+col
+		 */
+		public int getSquare() {
+			return this.square;
+		}
+
+		/**
+		 *
+		 * @return the tokens flipped back
+		 */
+		public long getFlips() {
+			return this.flips;
+		}
+
+		public String toString() {
+			return "Undo " + this.player + " (" + this.square / 8 + "," + this.square % 8 + ")";
+		}
+	}
+
+	/**
+	 * An undone move was made again, by Othello.redo.
+	 */
+	public static class Redo extends OthelloEvent {
+		private final char player;
+		private final int square;
+		private final long flips;
+
+		Redo(Othello game, char player, int square, long flips) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+			this.player = player;
+			this.square = square;
+			this.flips = flips;
+		}
+
+		public char getPlayer() {
+			return this.player;
+		}
+
+		public int getSquare() {
+			return this.square;
+		}
+
+		public long getFlips() {
+			return this.flips;
+		}
+
+		public String toString() {
+			return "Redo " + this.player + " (" + this.square / 8 + "," + this.square % 8 + ")";
+		}
+	}
+
+	/**
+	 * The game started over from the initial position, by Othello.reset.
+	 */
+	public static class Reset extends OthelloEvent {
+		Reset(Othello game) {
+			super(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), game.getWhosTurn(),
+					game.getNumMoves());
+		}
+
+		public String toString() {
+			return "Reset";
+		}
+	}
+}
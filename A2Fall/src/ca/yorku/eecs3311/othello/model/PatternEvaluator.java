@@ -0,0 +1,99 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * Scores a position by adding up the weights of the Patterns on the board,
+ * and of the difference in mobility, using the weight tables of the game
+ * phase. The index of every pattern instance is kept up to date as moves are
+ * made and taken back: a token placed or flipped changes only the digit of its
+ * square in the few instances it belongs to. Scoring a position is then one
+ * table lookup per instance, with nothing computed from the board.
+ *
+ * Scores are in units of 1/PatternWeights.SCALE of a disc.
+ *
+ * @author Helena
+ *
+ */
+public class PatternEvaluator implements Evaluator {
+	private final PatternWeights weights;
+	private final int[] indices = new int[Patterns.getInstanceCount()];
+	private int movesMade;
+
+	/**
+	 *
+	 * @param weights the weights, shared with any copies
+	 */
+	public PatternEvaluator(PatternWeights weights) {
+		this.weights = weights;
+	}
+
+	public PatternEvaluator() {
+		this(PatternWeights.defaults());
+	}
+
+	@Override
+	public void setPosition(Othello game) {
+		Patterns.getIndices(game.getTokens(OthelloBoard.P1), game.getTokens(OthelloBoard.P2), this.indices);
+		this.movesMade = 60 - game.getCount(OthelloBoard.EMPTY);
+	}
+
+	@Override
+	public void move(int square, long flips, char player) {
+		// the square goes from 0 to 1 or 2, flipped squares from 2 to 1 or 1 to 2
+		int placed = player == OthelloBoard.P1 ? 1 : 2;
+		this.add(square, placed);
+		int flipped = player == OthelloBoard.P1 ? -1 : 1;
+		for (; flips != 0; flips &= flips - 1) {
+			this.add(Long.numberOfTrailingZeros(flips), flipped);
+		}
+		this.movesMade++;
+	}
+
+	@Override
+	public void undoMove(int square, long flips, char player) {
+		int placed = player == OthelloBoard.P1 ? 1 : 2;
+		this.add(square, -placed);
+		int flipped = player == OthelloBoard.P1 ? -1 : 1;
+		for (; flips != 0; flips &= flips - 1) {
+			this.add(Long.numberOfTrailingZeros(flips), -flipped);
+		}
+		this.movesMade--;
+	}
+
+	/**
+	 * Change the digit of square by delta in every instance it belongs to.
+	 */
+	private void add(int square, int delta) {
+		int[] instances = Patterns.SQUARE_INSTANCES[square];
+		int[] powers = Patterns.SQUARE_POWERS[square];
+		for (int i = 0; i < instances.length; i++) {
+			this.indices[instances[i]] += delta * powers[i];
+		}
+	}
+
+	@Override
+	public int evaluate(Othello game, char side) {
+		short[] w = this.weights.weights[Patterns.getPhase(this.movesMade)];
+		int[] offsets = Patterns.INSTANCE_OFFSET;
+		int score = 0;
+		for (int i = 0; i < this.indices.length; i++) {
+			score += w[offsets[i] + this.indices[i]];
+		}
+		int mobility = Long.bitCount(game.getMoves(OthelloBoard.P1))
+				- Long.bitCount(game.getMoves(OthelloBoard.P2));
+		score += w[Patterns.MOBILITY] * mobility;
+		return side == OthelloBoard.P1 ? score : -score;
+	}
+
+	/**
+	 *
+	 * @return the index of each pattern instance in the current position
+	 */
+	public int[] getIndices() {
+		return this.indices.clone();
+	}
+
+	@Override
+	public Evaluator copy() {
+		return new PatternEvaluator(this.weights);
+	}
+}
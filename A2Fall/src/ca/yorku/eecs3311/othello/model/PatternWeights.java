@@ -0,0 +1,194 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The weights of the Patterns, one table per game phase, for PatternEvaluator.
+ * A weight is what an instance of a pattern type with that index adds to the
+ * score for P1, in discs, and the mobility weight is what each extra move P1
+ * has adds.
+ *
+ * Weights are stored in a binary file, big endian:
+ * <pre>
+ * int MAGIC, int VERSION, int phases, int weights per phase,
+ * float weights[phases][weights per phase]
+ * </pre>
+ * In memory they are kept as shorts, in units of 1/SCALE of a disc, so the
+ * tables are small enough to stay in cache.
+ *
+ * Without a file, defaults() gives weights worked out from a table of how good
+ * each square is, which is what the weights trained from games replace.
+ *
+ * @author Helena
+ *
+ */
+public class PatternWeights {
+	public static final int MAGIC = 0x4F505457; // "OPTW"
+	public static final int VERSION = 1;
+	public static final int SCALE = 64;
+
+	// how good each square is, in discs, for the defaults
+	private static final double[] SQUARE_VALUES = {
+			4.0, -1.0, 1.0, 0.5, 0.5, 1.0, -1.0, 4.0,
+			-1.0, -2.0, -0.5, -0.3, -0.3, -0.5, -2.0, -1.0,
+			1.0, -0.5, 0.3, 0.2, 0.2, 0.3, -0.5, 1.0,
+			0.5, -0.3, 0.2, 0.0, 0.0, 0.2, -0.3, 0.5,
+			0.5, -0.3, 0.2, 0.0, 0.0, 0.2, -0.3, 0.5,
+			1.0, -0.5, 0.3, 0.2, 0.2, 0.3, -0.5, 1.0,
+			-1.0, -2.0, -0.5, -0.3, -0.3, -0.5, -2.0, -1.0,
+			4.0, -1.0, 1.0, 0.5, 0.5, 1.0, -1.0, 4.0 };
+
+	// what each extra move is worth, in discs, for the defaults
+	private static final float MOBILITY_VALUE = 1.0f;
+
+	final short[][] weights;
+
+	private PatternWeights(short[][] weights) {
+		this.weights = weights;
+	}
+
+	/**
+	 *
+	 * @param weights weights[phase][Patterns.TYPE_OFFSET[type] + index] in discs
+	 * @return weights for PatternEvaluator, rounded to 1/SCALE of a disc
+	 */
+	public static PatternWeights of(float[][] weights) {
+		if (weights.length != Patterns.PHASES)
+			throw new IllegalArgumentException("expected " + Patterns.PHASES + " phases");
+		short[][] w = new short[Patterns.PHASES][];
+		for (int phase = 0; phase < Patterns.PHASES; phase++) {
+			if (weights[phase].length != Patterns.PHASE_SIZE)
+				throw new IllegalArgumentException("expected " + Patterns.PHASE_SIZE + " weights per phase");
+			w[phase] = new short[Patterns.PHASE_SIZE];
+			for (int i = 0; i < Patterns.PHASE_SIZE; i++) {
+				w[phase][i] = toShort(weights[phase][i]);
+			}
+		}
+		return new PatternWeights(w);
+	}
+
+	private static short toShort(float weight) {
+		return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(weight * SCALE)));
+	}
+
+	/**
+	 * Each square is worth its value in SQUARE_VALUES, except that the squares
+	 * next to a corner lose their penalty once the corner is taken. A square's
+	 * value is shared between the instances it belongs to, so that all the
+	 * instances together add up to the value of the board. Every phase gets the
+	 * same weights, telling phases apart is left to training.
+	 *
+	 * @return the default weights
+	 */
+	public static PatternWeights defaults() {
+		double[] value = new double[64];
+		for (int square = 0; square < 64; square++) {
+			value[square] = SQUARE_VALUES[square] / Patterns.SQUARE_INSTANCES[square].length;
+		}
+		float[] phaseWeights = new float[Patterns.PHASE_SIZE];
+		for (int i = 0; i < Patterns.INSTANCES.length; i++) {
+			int type = Patterns.INSTANCE_TYPE[i];
+			if (i > 0 && Patterns.INSTANCE_TYPE[i - 1] == type)
+				continue; // the first instance of each type stands for all of them
+			int[] squares = Patterns.INSTANCES[i];
+			for (int index = 0; index < Patterns.TYPE_SIZE[type]; index++) {
+				double w = 0;
+				for (int k = 0, digits = index; k < squares.length; k++, digits /= 3) {
+					double v = value[squares[k]];
+					if (v < 0 && isCornerTaken(squares, index, squares[k]))
+						v = 0; // next to a corner is only bad while the corner is empty
+					if (digits % 3 == 1)
+						w += v;
+					else if (digits % 3 == 2)
+						w -= v;
+				}
+				phaseWeights[Patterns.TYPE_OFFSET[type] + index] = (float) w;
+			}
+		}
+		phaseWeights[Patterns.MOBILITY] = MOBILITY_VALUE;
+		float[][] weights = new float[Patterns.PHASES][];
+		for (int phase = 0; phase < Patterns.PHASES; phase++) {
+			weights[phase] = phaseWeights;
+		}
+		return of(weights);
+	}
+
+	/**
+	 *
+	 * @return whether the corner next to square is one of squares, and is not
+	 *         empty in the instance with index
+	 */
+	private static boolean isCornerTaken(int[] squares, int index, int square) {
+		int row = square / 8, col = square % 8;
+		int corner = (row < 4 ? 0 : 56) + (col < 4 ? 0 : 7);
+		for (int k = 0, digits = index; k < squares.length; k++, digits /= 3) {
+			if (squares[k] == corner)
+				return digits % 3 != 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Read weights written by save.
+	 *
+	 * @throws IOException if file can not be read or does not hold weights for
+	 *                     these Patterns
+	 */
+	public static PatternWeights load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 16 || buffer.getInt() != MAGIC)
+				throw new IOException("not a pattern weights file");
+			if (buffer.getInt() != VERSION)
+				throw new IOException("unsupported pattern weights version");
+			if (buffer.getInt() != Patterns.PHASES || buffer.getInt() != Patterns.PHASE_SIZE)
+				throw new IOException("pattern weights are for different patterns");
+			FloatBuffer floats = buffer.asFloatBuffer();
+			if (floats.remaining() < Patterns.PHASES * Patterns.PHASE_SIZE)
+				throw new IOException("pattern weights file is truncated");
+			short[][] w = new short[Patterns.PHASES][Patterns.PHASE_SIZE];
+			for (int phase = 0; phase < Patterns.PHASES; phase++) {
+				for (int i = 0; i < Patterns.PHASE_SIZE; i++) {
+					w[phase][i] = toShort(floats.get());
+				}
+			}
+			return new PatternWeights(w);
+		}
+	}
+
+	/**
+	 * Write weights, in discs, for load.
+	 *
+	 * @param weights weights[phase][Patterns.TYPE_OFFSET[type] + index]
+	 */
+	public static void save(Path file, float[][] weights) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(Patterns.PHASES);
+			out.writeInt(Patterns.PHASE_SIZE);
+			for (float[] phase : weights) {
+				for (float w : phase) {
+					out.writeFloat(w);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the weight, in discs, of an instance of type with index in phase
+	 */
+	public float get(int phase, int type, int index) {
+		return (float) this.weights[phase][Patterns.TYPE_OFFSET[type] + index] / SCALE;
+	}
+}
@@ -0,0 +1,180 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The patterns scored by PatternEvaluator: edges, corners, diagonals and lines
+ * of squares. Each pattern type is a list of squares, and is placed on the
+ * board in every orientation it has under the 8 symmetries of the board, its
+ * instances. The contents of an instance is its index, a number in base 3 with
+ * one digit per square: 0 for EMPTY, 1 for P1, 2 for P2. All instances of a
+ * type share one table of weights, of size 3 to the number of squares.
+ *
+ * Each phase also has a weight for mobility, the difference in the number of
+ * moves each player has, which patterns can not see.
+ *
+ * For each square, the instances it belongs to and the value of its digit in
+ * each are listed, so that placing or flipping a token updates just those
+ * indices.
+ *
+ * @author Helena
+ *
+ */
+public final class Patterns {
+	/**
+	 * The squares of each pattern type, as row*8+col, in one orientation.
+	 */
+	static final int[][] TYPES = {
+			// an edge with the two X squares
+			{ 0, 1, 2, 3, 4, 5, 6, 7, 9, 14 },
+			// a 3x3 corner
+			{ 0, 1, 2, 8, 9, 10, 16, 17, 18 },
+			// a 2x5 corner
+			{ 0, 1, 2, 3, 4, 8, 9, 10, 11, 12 },
+			// the lines 2, 3 and 4 in from the edge
+			{ 8, 9, 10, 11, 12, 13, 14, 15 },
+			{ 16, 17, 18, 19, 20, 21, 22, 23 },
+			{ 24, 25, 26, 27, 28, 29, 30, 31 },
+			// the diagonals of length 8 to 4
+			{ 0, 9, 18, 27, 36, 45, 54, 63 },
+			{ 1, 10, 19, 28, 37, 46, 55 },
+			{ 2, 11, 20, 29, 38, 47 },
+			{ 3, 12, 21, 30, 39 },
+			{ 4, 13, 22, 31 } };
+
+	public static final String[] TYPE_NAMES = { "edge+2X", "corner3x3", "corner2x5", "line2", "line3", "line4",
+			"diagonal8", "diagonal7", "diagonal6", "diagonal5", "diagonal4" };
+
+	/**
+	 * The number of game phases with their own weights, by number of moves made.
+	 */
+	public static final int PHASES = 12;
+
+	/** The number of weights of each type. */
+	static final int[] TYPE_SIZE = new int[TYPES.length];
+	/** Where the weights of each type start in a phase's table. */
+	static final int[] TYPE_OFFSET = new int[TYPES.length];
+	/**
+	 * Where the weight of mobility is in a phase's table, after the patterns.
+	 * Mobility is the number of moves P1 has less the number P2 has.
+	 */
+	public static final int MOBILITY;
+	/** The number of weights in a phase. */
+	public static final int PHASE_SIZE;
+
+	/** The squares of each instance, and its type. */
+	static final int[][] INSTANCES;
+	static final int[] INSTANCE_TYPE;
+	static final int[] INSTANCE_OFFSET;
+
+	/** The instances each square belongs to, and its digit's value in each. */
+	static final int[][] SQUARE_INSTANCES = new int[64][];
+	static final int[][] SQUARE_POWERS = new int[64][];
+
+	static {
+		int offset = 0;
+		for (int t = 0; t < TYPES.length; t++) {
+			TYPE_SIZE[t] = pow3(TYPES[t].length);
+			TYPE_OFFSET[t] = offset;
+			offset += TYPE_SIZE[t];
+		}
+		MOBILITY = offset;
+		PHASE_SIZE = offset + 1;
+
+		List<int[]> instances = new ArrayList<>();
+		List<Integer> types = new ArrayList<>();
+		for (int t = 0; t < TYPES.length; t++) {
+			List<int[]> seen = new ArrayList<>();
+			for (int s = 0; s < 8; s++) {
+				int[] squares = new int[TYPES[t].length];
+				for (int k = 0; k < squares.length; k++) {
+					squares[k] = Symmetry.transform(TYPES[t][k], s);
+				}
+				int[] sorted = squares.clone();
+				Arrays.sort(sorted);
+				if (seen.stream().noneMatch(x -> Arrays.equals(x, sorted))) {
+					seen.add(sorted);
+					instances.add(squares);
+					types.add(t);
+				}
+			}
+		}
+		INSTANCES = instances.toArray(new int[0][]);
+		INSTANCE_TYPE = types.stream().mapToInt(Integer::intValue).toArray();
+		INSTANCE_OFFSET = types.stream().mapToInt(t -> TYPE_OFFSET[t]).toArray();
+
+		for (int square = 0; square < 64; square++) {
+			List<int[]> in = new ArrayList<>();
+			for (int i = 0; i < INSTANCES.length; i++) {
+				for (int k = 0; k < INSTANCES[i].length; k++) {
+					if (INSTANCES[i][k] == square)
+						in.add(new int[] { i, pow3(k) });
+				}
+			}
+			SQUARE_INSTANCES[square] = in.stream().mapToInt(x -> x[0]).toArray();
+			SQUARE_POWERS[square] = in.stream().mapToInt(x -> x[1]).toArray();
+		}
+	}
+
+	private Patterns() {
+	}
+
+	private static int pow3(int n) {
+		int p = 1;
+		for (int i = 0; i < n; i++) {
+			p *= 3;
+		}
+		return p;
+	}
+
+	/**
+	 *
+	 * @return the number of pattern instances on the board
+	 */
+	public static int getInstanceCount() {
+		return INSTANCES.length;
+	}
+
+	/**
+	 *
+	 * @param movesMade the number of tokens on the board less 4
+	 * @return the phase whose weights score a position
+	 */
+	public static int getPhase(int movesMade) {
+		return Math.min(PHASES - 1, Math.max(0, movesMade) * PHASES / 61);
+	}
+
+	/**
+	 * Compute the index of every instance from scratch.
+	 *
+	 * @param p1      mask of P1 tokens
+	 * @param p2      mask of P2 tokens
+	 * @param indices filled with the index of each instance
+	 */
+	public static void getIndices(long p1, long p2, int[] indices) {
+		for (int i = 0; i < INSTANCES.length; i++) {
+			int index = 0;
+			int[] squares = INSTANCES[i];
+			for (int k = squares.length - 1; k >= 0; k--) {
+				index = index * 3 + (int) (p1 >>> squares[k] & 1) + 2 * (int) (p2 >>> squares[k] & 1);
+			}
+			indices[i] = index;
+		}
+	}
+
+	/**
+	 * Compute the position in the weight table of a phase of every instance.
+	 *
+	 * @param p1       mask of P1 tokens
+	 * @param p2       mask of P2 tokens
+	 * @param features filled with TYPE_OFFSET plus the index of each instance
+	 */
+	public static void getFeatures(long p1, long p2, int[] features) {
+		getIndices(p1, p2, features);
+		for (int i = 0; i < INSTANCES.length; i++) {
+			features[i] += INSTANCE_OFFSET[i];
+		}
+	}
+}
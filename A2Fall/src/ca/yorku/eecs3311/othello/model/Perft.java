@@ -0,0 +1,163 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reached after exactly depth moves (perft), to check a
+ * move generator: two OthelloBoard implementations that generate and make the
+ * same moves give the same counts, at every depth. A finished game before
+ * depth counts as one position. Passes are handled as in Othello: a player
+ * with no move is skipped, which does not count as a move.
+ *
+ * The count can also run on several threads: near the root, each move's
+ * subtree is counted by a ForkJoinPool task on its own copy of the board, and
+ * further down each thread counts on its own.
+ *
+ * From the initial position the counts are those in REFERENCE_COUNTS. The
+ * counts usually published agree up to depth 8, but count a pass as a move,
+ * so from depth 9 on they differ (3005288 and 24571284 for depth 9 and 10).
+ *
+ * @author Helena
+ *
+ */
+public class Perft {
+	/**
+	 * The counts from the initial position, for depth 0, 1, 2, ...
+	 */
+	public static final long[] REFERENCE_COUNTS = { 1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005320,
+			24571420 };
+
+	// subtrees of this depth or less are counted by one thread
+	private static final int SEQUENTIAL_DEPTH = 6;
+
+	/**
+	 *
+	 * @param board  the position, given back unchanged
+	 * @param player the player to move, who must have a move
+	 * @param depth  the number of moves to play
+	 * @return the number of positions depth moves on
+	 */
+	public static long count(OthelloBoard board, char player, int depth) {
+		if (depth == 0)
+			return 1;
+		long moves = board.getMoves(player);
+		if (depth == 1)
+			return Long.bitCount(moves);
+		long count = 0;
+		for (; moves != 0; moves &= moves - 1) {
+			int square = Long.numberOfTrailingZeros(moves);
+			int row = square / 8, col = square % 8;
+			long flips = board.makeMove(row, col, player);
+			char next = nextPlayer(board, player);
+			count += next == OthelloBoard.EMPTY ? 1 : count(board, next, depth - 1);
+			board.undoMove(row, col, player, flips);
+		}
+		return count;
+	}
+
+	/**
+	 *
+	 * @param game  the position, which is not changed
+	 * @param depth the number of moves to play
+	 * @return the number of positions depth moves on
+	 */
+	public static long count(Othello game, int depth) {
+		if (game.isGameOver())
+			return 1;
+		return count(game.getBoard().copy(), game.getWhosTurn(), depth);
+	}
+
+	/**
+	 * Like count, on threads threads.
+	 */
+	public static long countParallel(OthelloBoard board, char player, int depth, int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new Subtree(board.copy(), player, depth));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * The count below a position, split into one task per move while deep
+	 * enough to be worth it.
+	 */
+	private static class Subtree extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final OthelloBoard board;
+		private final char player;
+		private final int depth;
+
+		Subtree(OthelloBoard board, char player, int depth) {
+			this.board = board;
+			this.player = player;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (this.depth <= SEQUENTIAL_DEPTH)
+				return count(this.board, this.player, this.depth);
+			List<Subtree> tasks = new ArrayList<>();
+			long count = 0;
+			for (long moves = this.board.getMoves(this.player); moves != 0; moves &= moves - 1) {
+				int square = Long.numberOfTrailingZeros(moves);
+				OthelloBoard child = this.board.copy();
+				child.makeMove(square / 8, square % 8, this.player);
+				char next = nextPlayer(child, this.player);
+				if (next == OthelloBoard.EMPTY)
+					count++;
+				else
+					tasks.add(new Subtree(child, next, this.depth - 1));
+			}
+			for (Subtree task : invokeAll(tasks)) {
+				count += task.join();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Who moves after player has moved on board, as Othello decides it.
+	 *
+	 * @return the other player, player again if the other has no move, EMPTY if
+	 *         neither has
+	 */
+	private static char nextPlayer(OthelloBoard board, char player) {
+		char other = OthelloBoard.otherPlayer(player);
+		if (board.getMoves(other) != 0)
+			return other;
+		if (board.getMoves(player) != 0)
+			return player;
+		return OthelloBoard.EMPTY;
+	}
+
+	/**
+	 * Count from the initial position, for each depth up to depth, and report
+	 * the positions per second.
+	 *
+	 * @param args the depth (default 9), the number of threads (default the
+	 *             number of processors) and bitboard or array (default
+	 *             bitboard) for the board to count on
+	 */
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		boolean array = args.length > 2 && args[2].equals("array");
+		for (int d = 1; d <= depth; d++) {
+			OthelloBoard board = array ? new OthelloBoard(Othello.DIMENSION) : new OthelloBitBoard();
+			long start = System.nanoTime();
+			long count = countParallel(board, OthelloBoard.P1, d, threads);
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			String check = d < REFERENCE_COUNTS.length ? (count == REFERENCE_COUNTS[d] ? " ok" : " WRONG, expected "
+					+ REFERENCE_COUNTS[d]) : "";
+			System.out.printf("depth %d: %d positions in %d ms, %d positions/s%s%n", d, count, elapsed / 1000000,
+					count * 1000000000L / elapsed, check);
+		}
+	}
+}
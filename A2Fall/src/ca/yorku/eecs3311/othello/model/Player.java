@@ -3,6 +3,7 @@ package ca.yorku.eecs3311.othello.model;
 public abstract class Player {
 	protected Othello othello;
 	protected char player;
+	protected OpeningBook book;
 
 	public Player(Othello othello, char player) {
 		this.othello=othello;
@@ -11,5 +12,24 @@ public abstract class Player {
 	public char getPlayer() {
 		return this.player;
 	}
+	/**
+	 * Play moves from book while the game is in it.
+	 * 
+	 * @param book the opening book, null for none
+	 */
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	/**
+	 * 
+	 * @return the book move in the current position, null if there is no book or
+	 *         the position is not in it
+	 */
+	protected Move getBookMove() {
+		if (this.book == null)
+			return null;
+		return this.book.getMove(this.othello);
+	}
 	public abstract Move getMove();
 }
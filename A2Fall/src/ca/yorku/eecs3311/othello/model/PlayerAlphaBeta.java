@@ -0,0 +1,150 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * PlayerAlphaBeta looks ahead with an AlphaBetaSearch, deepening one ply at a
+ * time until its budget for the move runs out: a wall clock time, a number of
+ * nodes, or a maximum depth, whichever comes first. After each move, the depth
+ * reached, the nodes searched and the nodes per second are available from
+ * getSearch(), to tune the budget against how long a move may take. The
+ * search can use several threads, see setThreads.
+ * 
+ * Once few enough empty squares are left (setEndgameEmpties), the rest of the
+ * game is solved exactly with an EndgameSolver instead.
+ * 
+ * @author Helena
+ *
+ */
+public class PlayerAlphaBeta extends Player {
+	public static final long DEFAULT_TIME_MILLIS = 1000;
+	public static final long DEFAULT_TABLE_BYTES = 16 << 20;
+
+	public static final int DEFAULT_ENDGAME_EMPTIES = 16;
+
+	private AlphaBetaSearch search;
+	private EndgameSolver solver;
+	private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+	private EndgameSolver.Mode endgameMode = EndgameSolver.Mode.EXACT;
+	private boolean solved = false; // whether the last move came from the solver
+	private long timeMillis = DEFAULT_TIME_MILLIS;
+	private long nodeLimit = Long.MAX_VALUE;
+	private int maxDepth = 64;
+
+	public PlayerAlphaBeta(Othello othello, char player) {
+		this(othello, player, DEFAULT_TABLE_BYTES);
+	}
+
+	/**
+	 * 
+	 * @param tableBytes the size of the transposition table, which a shallow
+	 *                   search does not need to be large
+	 */
+	public PlayerAlphaBeta(Othello othello, char player, long tableBytes) {
+		super(othello, player);
+		this.search = new AlphaBetaSearch(
+				new TranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED));
+	}
+
+	/**
+	 * 
+	 * @param timeMillis the wall clock time allowed for each move
+	 */
+	public void setTimeLimit(long timeMillis) {
+		this.timeMillis = timeMillis;
+	}
+
+	/**
+	 * 
+	 * @param nodeLimit the number of positions searched allowed for each move
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * 
+	 * @param maxDepth the number of moves to look ahead at most
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * 
+	 * @param evaluator scores the positions searched, for example a
+	 *                  PatternEvaluator
+	 */
+	public void setEvaluator(Evaluator evaluator) {
+		this.search.setEvaluator(evaluator);
+	}
+
+	/**
+	 * 
+	 * @param threads the number of threads to search with, 1 for a
+	 *                deterministic search
+	 */
+	public void setThreads(int threads) {
+		this.search.setThreads(threads);
+	}
+
+	/**
+	 * 
+	 * @param empties solve the game exactly from this many empty squares on, 0 to
+	 *                never solve
+	 */
+	public void setEndgameEmpties(int empties) {
+		this.endgameEmpties = empties;
+	}
+
+	/**
+	 * 
+	 * @param mode whether the solver finds the exact score or only whether the
+	 *             game is won, which is faster
+	 */
+	public void setEndgameMode(EndgameSolver.Mode mode) {
+		this.endgameMode = mode;
+	}
+
+	/**
+	 * 
+	 * @return the search, with the statistics of the last move
+	 */
+	public AlphaBetaSearch getSearch() {
+		return this.search;
+	}
+
+	/**
+	 * 
+	 * @return the solver, created when first needed, null before that
+	 */
+	public EndgameSolver getSolver() {
+		return this.solver;
+	}
+
+	/**
+	 * 
+	 * @return the statistics of the last move, from the search or the solver
+	 */
+	public String getSearchInfo() {
+		return this.solved ? this.solver.toString() : this.search.toString();
+	}
+
+	@Override
+	public Move getMove() {
+		Move bookMove = this.getBookMove();
+		if (bookMove != null)
+			return bookMove;
+		int square;
+		this.solved = this.othello.getCount(OthelloBoard.EMPTY) <= this.endgameEmpties;
+		if (this.solved) {
+			if (this.solver == null)
+				this.solver = new EndgameSolver(this.search.getTable());
+			square = this.solver.solve(this.othello, this.endgameMode);
+		} else {
+			square = this.search.search(this.othello, this.timeMillis, this.nodeLimit, this.maxDepth);
+		}
+		if (square < 0)
+			return new Move(0, 0); // no legal move, like PlayerGreedy
+		return new Move(square / 8, square % 8);
+	}
+
+}
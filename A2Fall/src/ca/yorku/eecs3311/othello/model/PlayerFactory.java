@@ -0,0 +1,79 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.Random;
+
+/**
+ * Creates a Player for each game of a Tournament.
+ * 
+ * @author Helena
+ *
+ */
+public interface PlayerFactory {
+	/**
+	 * The budgets of AlphaBeta and MonteCarlo when none is given. Headless
+	 * games use a fixed budget rather than the GUI's time per move, so that
+	 * results do not depend on the speed of the machine or the number of
+	 * threads.
+	 */
+	int DEFAULT_DEPTH = 4;
+	long DEFAULT_PLAYOUTS = 1000;
+
+	/**
+	 * 
+	 * @param othello the game to play
+	 * @param player  P1 or P2
+	 * @param rand    random numbers for this game only, for a player that needs
+	 *                them
+	 * @return a new player
+	 */
+	Player create(Othello othello, char player, Random rand);
+
+	/**
+	 * 
+	 * @param name Random, Greedy, AlphaBeta or MonteCarlo, as in the GUI. A
+	 *             budget per move can follow a colon: AlphaBeta:6 searches 6
+	 *             moves ahead, MonteCarlo:5000 runs 5000 playouts, and without
+	 *             one DEFAULT_DEPTH or DEFAULT_PLAYOUTS is used. AlphaBeta
+	 *             searches to the end of the game at its depth too, rather than
+	 *             solving the endgame exactly, so players of different depths
+	 *             differ to the last move. AlphaBeta:6:e12 also solves the last
+	 *             12 empty squares exactly.
+	 * @return a factory for players of that type
+	 */
+	static PlayerFactory of(String name) {
+		String[] parts = name.split(":");
+		String type = parts[0];
+		long budget = parts.length > 1 ? Long.parseLong(parts[1]) : 0;
+		if (parts.length > 3 || (parts.length == 3 && !(type.equals("AlphaBeta") && parts[2].startsWith("e"))))
+			throw new IllegalArgumentException("Invalid player type " + name);
+		int empties = parts.length == 3 ? Integer.parseInt(parts[2].substring(1)) : 0;
+		switch (type) {
+		case "Random":
+			return PlayerRandom::new;
+		case "Greedy":
+			return (othello, player, rand) -> new PlayerGreedy(othello, player);
+		case "AlphaBeta":
+			int depth = budget > 0 ? (int) budget : DEFAULT_DEPTH;
+			// a new table for each game keeps games independent, so it is sized to
+			// what the depth can fill rather than allocating the full default
+			long tableBytes = Math.min(PlayerAlphaBeta.DEFAULT_TABLE_BYTES, (16L << 10) << Math.min(depth, 10));
+			return (othello, player, rand) -> {
+				PlayerAlphaBeta p = new PlayerAlphaBeta(othello, player, tableBytes);
+				p.setMaxDepth(depth);
+				p.setTimeLimit(Long.MAX_VALUE / 2000000);
+				p.setEndgameEmpties(empties);
+				return p;
+			};
+		case "MonteCarlo":
+			return (othello, player, rand) -> {
+				PlayerMonteCarlo p = new PlayerMonteCarlo(othello, player);
+				p.setSeed(rand.nextLong());
+				p.setPlayoutLimit(budget > 0 ? budget : DEFAULT_PLAYOUTS);
+				p.setTimeLimit(Long.MAX_VALUE / 2000000);
+				return p;
+			};
+		default:
+			throw new IllegalArgumentException("Invalid player type " + name);
+		}
+	}
+}
@@ -20,26 +20,32 @@ package ca.yorku.eecs3311.othello.model;
  *
  */
 public class PlayerGreedy extends Player {
+	private MoveList moves = new MoveList();
+
 	public PlayerGreedy(Othello othello, char player) {
 		super(othello, player);
 	}
-	
+
+	/**
+	 * A move for whosTurn leaves this player with its current tokens, plus the
+	 * one placed, plus the ones flipped, so no copy of the game is needed.
+	 */
 	@Override
 	public Move getMove() {
-		Othello othelloCopy = othello.copy();
-		Move bestMove=new Move(0,0);
-		int bestMoveCount=othelloCopy.getCount(this.player);;
-		for(int row=0;row<Othello.DIMENSION;row++) {
-			for(int col=0;col<Othello.DIMENSION;col++) {
-				othelloCopy = othello.copy();
-				if(othelloCopy.move(row, col) && othelloCopy.getCount(this.player)>bestMoveCount) {
-					bestMoveCount = othelloCopy.getCount(this.player);
-					bestMove = new Move(row,col);
-				}
+		Move bookMove = this.getBookMove();
+		if (bookMove != null)
+			return bookMove;
+		othello.getMoves(this.moves);
+		int bestSquare = 0;
+		long bestFlips = 0;
+		for (int i = 0; i < this.moves.size(); i++) {
+			long flips = othello.getFlips(this.moves.getRow(i), this.moves.getCol(i));
+			if (Long.bitCount(flips) > Long.bitCount(bestFlips)) {
+				bestFlips = flips;
+				bestSquare = this.moves.getSquare(i);
 			}
 		}
-		return bestMove;
+		return new Move(bestSquare / 8, bestSquare % 8);
 	}
 
 }
-
@@ -0,0 +1,83 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * PlayerMonteCarlo chooses its move with a MonteCarloTreeSearch, which plays
+ * many random games out from the current position, the way PlayerRandom picks
+ * a move, and plays the move that does best in them. It needs no evaluation of
+ * positions, only the results of finished games, and gets stronger with every
+ * thread it is given (setThreads).
+ *
+ * The budget for a move is a wall clock time or a number of playouts,
+ * whichever runs out first. After each move, the playouts run and the playouts
+ * per second are available from getSearch().
+ *
+ * @author Helena
+ *
+ */
+public class PlayerMonteCarlo extends Player {
+	public static final long DEFAULT_TIME_MILLIS = 1000;
+
+	private final MonteCarloTreeSearch search = new MonteCarloTreeSearch();
+	private long timeMillis = DEFAULT_TIME_MILLIS;
+	private long playoutLimit = Long.MAX_VALUE;
+
+	public PlayerMonteCarlo(Othello othello, char player) {
+		super(othello, player);
+	}
+
+	/**
+	 * 
+	 * @param timeMillis the wall clock time allowed for each move
+	 */
+	public void setTimeLimit(long timeMillis) {
+		this.timeMillis = timeMillis;
+	}
+
+	/**
+	 * 
+	 * @param playoutLimit the number of playouts allowed for each move
+	 */
+	public void setPlayoutLimit(long playoutLimit) {
+		this.playoutLimit = playoutLimit;
+	}
+
+	/**
+	 * 
+	 * @param threads the number of threads to run playouts on, 1 for moves that
+	 *                can be repeated, see setSeed
+	 */
+	public void setThreads(int threads) {
+		this.search.setThreads(threads);
+	}
+
+	public void setSeed(long seed) {
+		this.search.setSeed(seed);
+	}
+
+	/**
+	 * 
+	 * @return the search, with the statistics of the last move
+	 */
+	public MonteCarloTreeSearch getSearch() {
+		return this.search;
+	}
+
+	/**
+	 * 
+	 * @return the statistics of the last move
+	 */
+	public String getSearchInfo() {
+		return this.search.toString();
+	}
+
+	@Override
+	public Move getMove() {
+		Move bookMove = this.getBookMove();
+		if (bookMove != null)
+			return bookMove;
+		int square = this.search.search(this.othello, this.timeMillis, this.playoutLimit);
+		if (square < 0)
+			return new Move(0, 0); // no legal move, like PlayerGreedy
+		return new Move(square / 8, square % 8);
+	}
+}
@@ -1,33 +1,40 @@
 package ca.yorku.eecs3311.othello.model;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
  * PlayerRandom makes a move by first determining all possible moves that this
- * player can make, putting them in an ArrayList, and then randomly choosing one
- * of them.
+ * player can make, putting them in a MoveList, and then randomly choosing one
+ * of them. The MoveList is reused from turn to turn.
  * 
  * @author Helena
  *
  */
 public class PlayerRandom extends Player {
-	private Random rand = new Random();
+	private final Random rand;
+	private MoveList moves = new MoveList();
 
 	public PlayerRandom(Othello othello, char player) {
+		this(othello, player, new Random());
+	}
+
+	/**
+	 * 
+	 * @param rand the random numbers to choose moves with, so that games can be
+	 *             repeated
+	 */
+	public PlayerRandom(Othello othello, char player, Random rand) {
 		super(othello, player);
+		this.rand = rand;
 	}
 	
 	@Override
 	public Move getMove() {
-		ArrayList<Move> moves = new ArrayList<Move>();
-		for(int row=0;row<Othello.DIMENSION;row++) {
-			for(int col=0;col<Othello.DIMENSION;col++) {
-				Othello othelloCopy = othello.copy();
-				if(othelloCopy.move(row, col))moves.add(new Move(row,col));
-			}
-		}
-		return moves.get(this.rand.nextInt(moves.size()));
+		Move bookMove = this.getBookMove();
+		if (bookMove != null)
+			return bookMove;
+		othello.getMoves(this.moves);
+		int i = this.rand.nextInt(this.moves.size());
+		return new Move(this.moves.getRow(i), this.moves.getCol(i));
 	}
 }
-
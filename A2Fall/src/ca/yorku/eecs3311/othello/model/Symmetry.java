@@ -0,0 +1,153 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * The 8 symmetries of the board: the rotations and reflections that map the
+ * board onto itself. Symmetry s mirrors the columns if bit 0 of s is set, then
+ * the rows if bit 1 is set, then swaps rows and columns if bit 2 is set, so 0
+ * is the identity. The rules of Othello are the same under every symmetry, so
+ * positions that are symmetric to each other have the same moves, up to the
+ * symmetry, and the same outcome.
+ *
+ * Each symmetry is applied to a whole mask of tokens at once, with a few
+ * shifts and masks, so a position can be compared with all its images in a
+ * few dozen instructions. The canonical form of a position is the image with
+ * the least P1 tokens, then the least P2 tokens, as signed longs. Books and
+ * indexes store a position once, by the hash of its canonical form, along with
+ * any move in the canonical frame; transform and inverse map moves between
+ * the frames.
+ *
+ * @author Helena
+ *
+ */
+public final class Symmetry {
+	public static final int COUNT = 8;
+
+	// SQUARES[s][square] is where square goes under symmetry s
+	private static final int[][] SQUARES = new int[COUNT][64];
+
+	static {
+		for (int s = 0; s < COUNT; s++) {
+			for (int square = 0; square < 64; square++) {
+				int row = square / 8, col = square % 8;
+				if ((s & 1) != 0)
+					col = 7 - col;
+				if ((s & 2) != 0)
+					row = 7 - row;
+				if ((s & 4) != 0) {
+					int t = row;
+					row = col;
+					col = t;
+				}
+				SQUARES[s][square] = row * 8 + col;
+			}
+		}
+	}
+
+	private Symmetry() {
+	}
+
+	/**
+	 *
+	 * @param square row*8+col
+	 * @param s      one of the 8 symmetries of the board, 0 is the identity
+	 * @return where square goes under symmetry s
+	 */
+	public static int transform(int square, int s) {
+		return SQUARES[s][square];
+	}
+
+	/**
+	 *
+	 * @param s one of the 8 symmetries
+	 * @return the symmetry that undoes s
+	 */
+	public static int inverse(int s) {
+		// swapping rows and columns turns a mirror of the columns into one of the rows
+		return (s & 4) == 0 ? s : 4 | (s & 1) << 1 | (s & 2) >> 1;
+	}
+
+	/**
+	 *
+	 * @return mask with column col moved to 7-col
+	 */
+	public static long mirrorColumns(long mask) {
+		mask = (mask >>> 1) & 0x5555555555555555L | (mask & 0x5555555555555555L) << 1;
+		mask = (mask >>> 2) & 0x3333333333333333L | (mask & 0x3333333333333333L) << 2;
+		return (mask >>> 4) & 0x0F0F0F0F0F0F0F0FL | (mask & 0x0F0F0F0F0F0F0F0FL) << 4;
+	}
+
+	/**
+	 *
+	 * @return mask with row row moved to 7-row
+	 */
+	public static long mirrorRows(long mask) {
+		return Long.reverseBytes(mask);
+	}
+
+	/**
+	 *
+	 * @return mask with (row,col) moved to (col,row)
+	 */
+	public static long transpose(long mask) {
+		long t = 0x0F0F0F0F00000000L & (mask ^ (mask << 28));
+		mask ^= t ^ (t >>> 28);
+		t = 0x3333000033330000L & (mask ^ (mask << 14));
+		mask ^= t ^ (t >>> 14);
+		t = 0x5500550055005500L & (mask ^ (mask << 7));
+		return mask ^ t ^ (t >>> 7);
+	}
+
+	/**
+	 *
+	 * @param mask a set of squares, bit row*8+col for each
+	 * @param s    one of the 8 symmetries of the board
+	 * @return where the squares of mask go under symmetry s
+	 */
+	public static long transform(long mask, int s) {
+		if ((s & 1) != 0)
+			mask = mirrorColumns(mask);
+		if ((s & 2) != 0)
+			mask = mirrorRows(mask);
+		if ((s & 4) != 0)
+			mask = transpose(mask);
+		return mask;
+	}
+
+	/**
+	 *
+	 * @param p1 mask of P1 tokens
+	 * @param p2 mask of P2 tokens
+	 * @return the symmetry that takes the position to its canonical form, the
+	 *         least one if the position is symmetric
+	 */
+	public static int canonical(long p1, long p2) {
+		int best = 0;
+		long bestP1 = p1, bestP2 = p2;
+		for (int s = 1; s < COUNT; s++) {
+			long image1 = transform(p1, s);
+			if (image1 > bestP1)
+				continue; // P2 only matters on a tie
+			long image2 = transform(p2, s);
+			if (image1 < bestP1 || image2 < bestP2) {
+				best = s;
+				bestP1 = image1;
+				bestP2 = image2;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * A hash that is the same for a position and all positions symmetric to it:
+	 * the Zobrist hash of its canonical form.
+	 *
+	 * @param p1       mask of P1 tokens
+	 * @param p2       mask of P2 tokens
+	 * @param whosTurn P1, P2 or EMPTY
+	 * @return the hash of the canonical form, with the side to move
+	 */
+	public static long canonicalHash(long p1, long p2, char whosTurn) {
+		int s = canonical(p1, p2);
+		return Zobrist.hash(transform(p1, s), transform(p2, s)) ^ Zobrist.side(whosTurn);
+	}
+}
@@ -0,0 +1,225 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many games between two kinds of Player, headless, and counts the
+ * results. Games are spread over a ForkJoinPool: the range of games is split
+ * in halves until the pieces are small, and idle threads steal pieces from
+ * busy ones. Each game has its own Othello and its own players, and its own
+ * random numbers, seeded from the tournament seed and the game's number, so a
+ * tournament gives the same results whatever the number of threads, as long
+ * as the players' budgets are not wall clock times, which those of
+ * PlayerFactory.of never are. Each piece counts its results locally and adds
+ * them to LongAdders once, so the threads never wait on each other.
+ *
+ * The results are reported as the rate of P1 wins, draws and P2 wins, each
+ * with a 95% confidence interval, and the games played per second.
+ *
+ * @author Helena
+ *
+ */
+public class Tournament {
+	// games a piece plays itself, rather than splitting further
+	private static final int PIECE_GAMES = 64;
+	// for a 95% confidence interval
+	private static final double Z = 1.96;
+
+	private final PlayerFactory player1, player2;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long seed = 0;
+
+	private final LongAdder p1Wins = new LongAdder(), p2Wins = new LongAdder(), draws = new LongAdder();
+	private long elapsedNanos;
+
+	/**
+	 *
+	 * @param player1 creates the player playing P1 in each game
+	 * @param player2 creates the player playing P2 in each game
+	 */
+	public Tournament(PlayerFactory player1, PlayerFactory player2) {
+		this.player1 = player1;
+		this.player2 = player2;
+	}
+
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+		this.threads = threads;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Play games games, replacing the results of any earlier call.
+	 */
+	public void play(int games) {
+		this.p1Wins.reset();
+		this.p2Wins.reset();
+		this.draws.reset();
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(this.threads);
+		try {
+			pool.invoke(new Piece(0, games));
+		} finally {
+			pool.shutdown();
+		}
+		this.elapsedNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Games from..to-1, split in halves until small enough to play.
+	 */
+	private class Piece extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to;
+
+		Piece(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > PIECE_GAMES) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Piece(this.from, middle), new Piece(middle, this.to));
+				return;
+			}
+			int p1 = 0, p2 = 0, drawn = 0;
+			for (int game = this.from; game < this.to; game++) {
+				char winner = playGame(game);
+				if (winner == OthelloBoard.P1)
+					p1++;
+				else if (winner == OthelloBoard.P2)
+					p2++;
+				else
+					drawn++;
+			}
+			Tournament.this.p1Wins.add(p1);
+			Tournament.this.p2Wins.add(p2);
+			Tournament.this.draws.add(drawn);
+		}
+	}
+
+	/**
+	 *
+	 * @param game the number of the game, which seeds its random numbers
+	 * @return the winner, EMPTY for a draw
+	 */
+	char playGame(int game) {
+		return play(this.player1, this.player2, new Random(seed(this.seed, game)));
+	}
+
+	/**
+	 * Play one game to the end.
+	 *
+	 * @param rand the random numbers of the game, for both players
+	 * @return the winner, EMPTY for a draw
+	 */
+	static char play(PlayerFactory player1, PlayerFactory player2, Random rand) {
+		Othello othello = new Othello();
+		Player p1 = player1.create(othello, OthelloBoard.P1, rand);
+		Player p2 = player2.create(othello, OthelloBoard.P2, rand);
+		while (!othello.isGameOver()) {
+			Move move = (othello.getWhosTurn() == OthelloBoard.P1 ? p1 : p2).getMove();
+			othello.move(move.getRow(), move.getCol());
+		}
+		return othello.getWinner();
+	}
+
+	/**
+	 * The seed of game number game, through the SplitMix64 finalizer, so that
+	 * the seeds of consecutive games are unrelated.
+	 */
+	static long seed(long seed, int game) {
+		long z = seed + game * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public long getGames() {
+		return this.p1Wins.sum() + this.p2Wins.sum() + this.draws.sum();
+	}
+
+	public long getP1Wins() {
+		return this.p1Wins.sum();
+	}
+
+	public long getP2Wins() {
+		return this.p2Wins.sum();
+	}
+
+	public long getDraws() {
+		return this.draws.sum();
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000;
+	}
+
+	public long getGamesPerSecond() {
+		return this.elapsedNanos == 0 ? 0 : this.getGames() * 1000000000L / this.elapsedNanos;
+	}
+
+	/**
+	 * The Wilson score interval, which unlike the usual p +/- z*sqrt(p(1-p)/n)
+	 * stays within 0..1 and is sound for rates near 0 or 1.
+	 *
+	 * @param count the number of games with the result
+	 * @param games the number of games
+	 * @return the lower and upper ends of the 95% confidence interval for the
+	 *         rate of the result
+	 */
+	public static double[] confidenceInterval(long count, long games) {
+		if (games == 0)
+			return new double[] { 0, 1 };
+		double p = (double) count / games, z2 = Z * Z;
+		double centre = (p + z2 / (2 * games)) / (1 + z2 / games);
+		double halfWidth = Z * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games)) / (1 + z2 / games);
+		return new double[] { Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth) };
+	}
+
+	private String rate(String name, long count) {
+		long games = this.getGames();
+		double[] interval = confidenceInterval(count, games);
+		return String.format("%s %.4f [%.4f, %.4f]", name, games == 0 ? 0.0 : (double) count / games, interval[0],
+				interval[1]);
+	}
+
+	public String toString() {
+		return this.rate("P1 wins", this.getP1Wins()) + ", " + this.rate("draws", this.getDraws()) + ", "
+				+ this.rate("P2 wins", this.getP2Wins()) + "; " + this.getGames() + " games in "
+				+ this.getElapsedMillis() + " ms, " + this.getGamesPerSecond() + " games/s, " + this.threads
+				+ " threads";
+	}
+
+	/**
+	 * Play a tournament and print the results.
+	 *
+	 * @param args the P1 and P2 players, as taken by PlayerFactory.of, the number
+	 *             of games (default 10000), the number of threads (default the
+	 *             number of processors) and the seed (default 0)
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("usage: Tournament player1 player2 [games] [threads] [seed]");
+			System.exit(1);
+		}
+		Tournament tournament = new Tournament(PlayerFactory.of(args[0]), PlayerFactory.of(args[1]));
+		int games = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		if (args.length > 3)
+			tournament.setThreads(Integer.parseInt(args[3]));
+		if (args.length > 4)
+			tournament.setSeed(Long.parseLong(args[4]));
+		tournament.play(games);
+		System.out.println(tournament);
+	}
+}
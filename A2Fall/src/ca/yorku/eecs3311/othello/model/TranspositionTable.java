@@ -0,0 +1,268 @@
+package ca.yorku.eecs3311.othello.model;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size table of search results, keyed by position hash (see
+ * Othello.getHash), so a search that reaches the same position again by a
+ * different order of moves can reuse what it found the first time.
+ *
+ * Each entry keeps the depth searched, whether the score is exact or only a
+ * lower or upper bound, the score and the best move found. The table is two
+ * preallocated long arrays, one for keys and one for the entry packed into a
+ * long, so even a very large table is only two objects for the garbage
+ * collector. Entries live in buckets of two, and the Replacement policy
+ * decides which entry of a bucket a new result replaces.
+ *
+ * The table can be shared by several search threads without locking. Each key
+ * is stored XORed with its entry, so an entry that one thread reads while
+ * another is half way through writing it does not match its key, and is
+ * treated as a miss. Hits, misses and collisions can be counted to help
+ * choose a size (setCounting). Counting is off by default: the counters are
+ * written on every probe and store, which, with a table shared by several
+ * threads, would make every node write to the same contended cache line. When
+ * the table is shared the counts are approximate.
+ *
+ * @author Helena
+ *
+ */
+public class TranspositionTable {
+	/**
+	 * The bound types of a stored score.
+	 */
+	public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+	/**
+	 * Returned by probe when the position is not in the table.
+	 */
+	public static final long MISS = -1L;
+
+	/**
+	 * How a result is stored when both entries of its bucket hold other
+	 * positions.
+	 */
+	public enum Replacement {
+		/** Replace the shallower entry, unless the new result is shallower still. */
+		DEPTH_PREFERRED,
+		/** Always replace the shallower entry. */
+		ALWAYS_REPLACE,
+		/**
+		 * The first entry keeps the deepest result seen, the second always takes
+		 * the newest one.
+		 */
+		TWO_TIER
+	}
+
+	// entry layout: score in bits 0-15, move + 1 in bits 16-23, depth in 24-31,
+	// bound in 32-33, bit 34 set for a used entry
+	private static final long USED = 1L << 34;
+
+	private final long[] keys;
+	private final long[] entries;
+	private final int mask;
+	private final Replacement replacement;
+
+	private boolean counting = false;
+	private long hits, misses, collisions, stores;
+
+	/**
+	 *
+	 * @param bytes       the memory to use, rounded down to a power of two number
+	 *                    of entries of 16 bytes each
+	 * @param replacement the replacement policy
+	 */
+	public TranspositionTable(long bytes, Replacement replacement) {
+		long size = Long.highestOneBit(Math.max(2, Math.min(bytes / 16, 1 << 30)));
+		this.keys = new long[(int) size];
+		this.entries = new long[(int) size];
+		this.mask = (int) size - 1;
+		this.replacement = replacement;
+	}
+
+	/**
+	 *
+	 * @param hash the position hash
+	 * @return the entry for hash, to be read with getScore, getMove, getDepth
+	 *         and getBound, or MISS if the position is not in the table
+	 */
+	public long probe(long hash) {
+		int i = this.bucket(hash);
+		for (int j = i; j < i + 2; j++) {
+			long entry = this.entries[j];
+			if ((this.keys[j] ^ entry) == hash && (entry & USED) != 0) {
+				if (this.counting)
+					this.hits++;
+				return entry;
+			}
+		}
+		if (this.counting) {
+			this.misses++;
+			if ((this.entries[i] & USED) != 0 || (this.entries[i + 1] & USED) != 0)
+				this.collisions++;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Store the result of searching a position, subject to the replacement
+	 * policy.
+	 *
+	 * @param hash  the position hash
+	 * @param depth the depth searched, in {0,...,255}
+	 * @param bound EXACT, LOWER or UPPER
+	 * @param score the score, in the range of a short
+	 * @param move  the best move as row*8+col, -1 if there is none
+	 */
+	public void store(long hash, int depth, int bound, int score, int move) {
+		long entry = (score & 0xFFFFL) | ((long) ((move + 1) & 0xFF) << 16) | ((long) (depth & 0xFF) << 24)
+				| ((long) bound << 32) | USED;
+		int i = this.bucket(hash);
+		if (this.counting)
+			this.stores++;
+		if (this.getKey(i) == hash) {
+			this.put(i, hash, entry);
+			return;
+		}
+		if (this.getKey(i + 1) == hash) {
+			this.put(i + 1, hash, entry);
+			return;
+		}
+		// an empty entry is taken first, the policies only decide between two others
+		int shallower;
+		if ((this.entries[i] & USED) == 0)
+			shallower = i;
+		else if ((this.entries[i + 1] & USED) == 0)
+			shallower = i + 1;
+		else
+			shallower = getDepth(this.entries[i]) <= getDepth(this.entries[i + 1]) ? i : i + 1;
+		switch (this.replacement) {
+		case DEPTH_PREFERRED:
+			if ((this.entries[shallower] & USED) == 0 || depth >= getDepth(this.entries[shallower]))
+				this.put(shallower, hash, entry);
+			break;
+		case ALWAYS_REPLACE:
+			this.put(shallower, hash, entry);
+			break;
+		case TWO_TIER:
+			if ((this.entries[i] & USED) == 0 || depth >= getDepth(this.entries[i])) {
+				this.put(i + 1, this.getKey(i), this.entries[i]);
+				this.put(i, hash, entry);
+			} else {
+				this.put(i + 1, hash, entry);
+			}
+			break;
+		}
+	}
+
+	private void put(int i, long hash, long entry) {
+		this.keys[i] = hash ^ entry;
+		this.entries[i] = entry;
+	}
+
+	private long getKey(int i) {
+		return this.keys[i] ^ this.entries[i];
+	}
+
+	private int bucket(long hash) {
+		return (int) (hash ^ (hash >>> 32)) & this.mask & ~1;
+	}
+
+	public static int getScore(long entry) {
+		return (short) entry;
+	}
+
+	/**
+	 *
+	 * @return the best move as row*8+col, -1 if there is none
+	 */
+	public static int getMove(long entry) {
+		return (int) ((entry >>> 16) & 0xFF) - 1;
+	}
+
+	public static int getDepth(long entry) {
+		return (int) ((entry >>> 24) & 0xFF);
+	}
+
+	public static int getBound(long entry) {
+		return (int) ((entry >>> 32) & 3);
+	}
+
+	/**
+	 * Empty the table, keeping the counters.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.entries, 0);
+	}
+
+	/**
+	 *
+	 * @param counting whether to count hits, misses, collisions and stores
+	 */
+	public void setCounting(boolean counting) {
+		this.counting = counting;
+	}
+
+	public boolean isCounting() {
+		return this.counting;
+	}
+
+	public void clearCounters() {
+		this.hits = this.misses = this.collisions = this.stores = 0;
+	}
+
+	/**
+	 *
+	 * @return the number of entries in the table
+	 */
+	public int getSize() {
+		return this.keys.length;
+	}
+
+	public long getSizeInBytes() {
+		return 16L * this.keys.length;
+	}
+
+	/**
+	 *
+	 * @return the number of used entries
+	 */
+	public int getUsed() {
+		int used = 0;
+		for (long entry : this.entries) {
+			if ((entry & USED) != 0)
+				used++;
+		}
+		return used;
+	}
+
+	public long getHits() {
+		return this.hits;
+	}
+
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 *
+	 * @return the number of misses where the bucket held other positions
+	 */
+	public long getCollisions() {
+		return this.collisions;
+	}
+
+	public long getStores() {
+		return this.stores;
+	}
+
+	public String toString() {
+		String s = "TranspositionTable " + this.getSize() + " entries (" + (this.getSizeInBytes() >> 20) + " MB) "
+				+ this.replacement;
+		if (!this.counting)
+			return s;
+		long probes = this.hits + this.misses;
+		return s + ": " + this.hits + " hits, " + this.misses + " misses, " + this.collisions
+				+ " collisions, hit rate " + (probes == 0 ? 0 : 100 * this.hits / probes) + "%";
+	}
+}
@@ -31,25 +31,20 @@ public class ValidMovesVisitor implements BoardVisitor {
 
     /**
      * Visits an Othello board and determines all valid moves for the specified player.
-     * A valid move is identified by checking if a move in any direction
-     * satisfies the game's rules.
+     * The moves come from OthelloBoard.getMoves, each square is listed once.
+     * Code that runs every turn should use OthelloBoard.getMoves with a
+     * MoveList instead, which does not allocate.
      * 
      * @param board the OthelloBoard to be visited.
      */
     @Override
     public void visit(OthelloBoard board) {
         validMoves.clear();
-        for (int row = 0; row < board.getDimension(); row++) {
-            for (int col = 0; col < board.getDimension(); col++) {
-                for (int drow = -1; drow <= 1; drow++) {
-                    for (int dcol = -1; dcol <= 1; dcol++) {
-                        if (board.hasMove(row, col, drow, dcol) == player) {
-                            validMoves.add(new int[] { row, col });
-                            break;
-                        }
-                    }
-                }
-            }
+        long moves = board.getMoves(player);
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            validMoves.add(new int[] { square / 8, square % 8 });
+            moves &= moves - 1;
         }
     }
     
@@ -0,0 +1,98 @@
+package ca.yorku.eecs3311.othello.model;
+
+/**
+ * Zobrist keys for identifying Othello positions by a 64 bit hash. Each
+ * (player, square) pair has a random key, and the hash of a position is the
+ * XOR of the keys of all tokens on the board, XOR SIDE_TO_MOVE if P2 moves
+ * next. Placing or flipping a token changes the hash by XORing one or two keys,
+ * so OthelloBoard and Othello keep it up to date as moves are made, instead of
+ * rescanning the board.
+ *
+ * The keys come from a fixed seed, so a hash is the same from run to run and
+ * can be stored in files (opening books, game archives).
+ *
+ * @author Helena
+ *
+ */
+public class Zobrist {
+	/**
+	 * XORed into the hash of a position in which P2 moves next.
+	 */
+	public static final long SIDE_TO_MOVE;
+
+	private static final long[] P1_KEYS = new long[64], P2_KEYS = new long[64];
+	private static final long[] FLIP_KEYS = new long[64]; // P1_KEYS[i]^P2_KEYS[i]
+
+	static {
+		long seed = 0x3311_0000_0000_0001L;
+		for (int square = 0; square < 64; square++) {
+			P1_KEYS[square] = splitMix64(seed += 0x9E3779B97F4A7C15L);
+			P2_KEYS[square] = splitMix64(seed += 0x9E3779B97F4A7C15L);
+			FLIP_KEYS[square] = P1_KEYS[square] ^ P2_KEYS[square];
+		}
+		SIDE_TO_MOVE = splitMix64(seed += 0x9E3779B97F4A7C15L);
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 *
+	 * @param player P1 or P2
+	 * @param square row*8+col
+	 * @return the key of a token of player on square, 0 for EMPTY
+	 */
+	public static long key(char player, int square) {
+		if (player == OthelloBoard.P1)
+			return P1_KEYS[square];
+		if (player == OthelloBoard.P2)
+			return P2_KEYS[square];
+		return 0;
+	}
+
+	/**
+	 *
+	 * @param flips a mask of tokens that change owner
+	 * @return what the hash changes by when the tokens in flips change owner
+	 */
+	public static long flipKey(long flips) {
+		long key = 0;
+		for (; flips != 0; flips &= flips - 1) {
+			key ^= FLIP_KEYS[Long.numberOfTrailingZeros(flips)];
+		}
+		return key;
+	}
+
+	/**
+	 *
+	 * @param whosTurn P1, P2 or EMPTY
+	 * @return the part of the hash that depends on who moves next
+	 */
+	public static long side(char whosTurn) {
+		return whosTurn == OthelloBoard.P2 ? SIDE_TO_MOVE : 0;
+	}
+
+	/**
+	 * Compute the hash of a board from scratch.
+	 *
+	 * @param p1 mask of P1 tokens
+	 * @param p2 mask of P2 tokens
+	 * @return the hash of the board, without the side to move
+	 */
+	public static long hash(long p1, long p2) {
+		long hash = 0;
+		for (; p1 != 0; p1 &= p1 - 1) {
+			hash ^= P1_KEYS[Long.numberOfTrailingZeros(p1)];
+		}
+		for (; p2 != 0; p2 &= p2 - 1) {
+			hash ^= P2_KEYS[Long.numberOfTrailingZeros(p2)];
+		}
+		return hash;
+	}
+
+	private static long splitMix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
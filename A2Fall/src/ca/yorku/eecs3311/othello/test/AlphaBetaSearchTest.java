@@ -0,0 +1,112 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.othello.model.TranspositionTable.Replacement;
+
+public class AlphaBetaSearchTest {
+	AlphaBetaSearch search;
+
+	@Before
+	public void setUp() throws Exception {
+		search = new AlphaBetaSearch(new TranspositionTable(1 << 20, Replacement.DEPTH_PREFERRED));
+	}
+
+	/**
+	 * The score AlphaBetaSearch gives the position, from a plain minimax.
+	 */
+	private int solve(Othello othello) {
+		int diff = TestGames.solve(othello);
+		return Integer.signum(diff) * AlphaBetaSearch.WIN + diff;
+	}
+
+	@Test
+	public void testSolvesEndgame() {
+		for (long seed = 0; seed < 5; seed++) {
+			Othello othello = TestGames.randomGame(seed, 8);
+			if (othello.isGameOver())
+				continue;
+			int square = search.search(othello, 60000, Long.MAX_VALUE, 64);
+			assertEquals("seed " + seed, search.getScore(), solve(othello));
+			assertTrue("legal move", (othello.getMoves() & (1L << square)) != 0);
+		}
+	}
+
+	@Test
+	public void testGameNotChanged() {
+		Othello othello = TestGames.randomGame(1, 40);
+		Othello copy = othello.copy();
+		search.search(othello, 60000, Long.MAX_VALUE, 4);
+		assertEquals(othello, copy);
+		assertEquals(othello.getCount(OthelloBoard.EMPTY), copy.getCount(OthelloBoard.EMPTY));
+		assertEquals(search.getDepthReached(), 4);
+		assertTrue(search.getNodes() > 0);
+	}
+
+	@Test
+	public void testNodeLimit() {
+		Othello othello = new Othello();
+		search.search(othello, 60000, 5000, 64);
+		assertTrue("depth 1 is always completed", search.getDepthReached() >= 1);
+		assertTrue(search.getDepthReached() < 64);
+		assertTrue(search.getNodes() <= 5000 + 1024);
+		assertTrue((othello.getMoves() & (1L << search.getBestMove())) != 0);
+	}
+
+	@Test
+	public void testPlaysLegalMoves() {
+		Othello othello = new Othello();
+		PlayerAlphaBeta p1 = new PlayerAlphaBeta(othello, OthelloBoard.P1);
+		p1.setMaxDepth(3);
+		Player p2 = new PlayerGreedy(othello, OthelloBoard.P2);
+		while (!othello.isGameOver()) {
+			Player player = othello.getWhosTurn() == OthelloBoard.P1 ? p1 : p2;
+			Move move = player.getMove();
+			assertTrue(move.toString(), othello.move(move.getRow(), move.getCol()));
+		}
+	}
+
+	@Test
+	public void testDeterministicWithOneThread() {
+		Othello othello = TestGames.randomGame(3, 40);
+		int[] moves = new int[2], scores = new int[2];
+		long[] nodes = new long[2];
+		for (int i = 0; i < 2; i++) {
+			AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(1 << 20, Replacement.DEPTH_PREFERRED));
+			moves[i] = search.search(othello, 60000, Long.MAX_VALUE, 6);
+			scores[i] = search.getScore();
+			nodes[i] = search.getNodes();
+		}
+		assertEquals(moves[0], moves[1]);
+		assertEquals(scores[0], scores[1]);
+		assertEquals(nodes[0], nodes[1]);
+	}
+
+	@Test
+	public void testThreadsSolveEndgame() {
+		search.setThreads(4);
+		assertEquals(search.getThreads(), 4);
+		for (long seed = 5; seed < 10; seed++) {
+			Othello othello = TestGames.randomGame(seed, 9);
+			if (othello.isGameOver())
+				continue;
+			int square = search.search(othello, 60000, Long.MAX_VALUE, 64);
+			assertEquals("seed " + seed, search.getScore(), solve(othello));
+			assertTrue("legal move", (othello.getMoves() & (1L << square)) != 0);
+		}
+		search.setThreads(1);
+	}
+
+	@Test
+	public void testNoMove() {
+		Othello othello = TestGames.randomGame(2, 0);
+		assertTrue(othello.isGameOver());
+		assertEquals(search.search(othello, 1000, Long.MAX_VALUE, 64), -1);
+		Move move = new PlayerAlphaBeta(othello, OthelloBoard.P1).getMove();
+		assertEquals(move.getRow(), 0);
+	}
+}
@@ -0,0 +1,218 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.archive.*;
+import ca.yorku.eecs3311.othello.model.*;
+
+public class ArchiveTest {
+	Path dir;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("othello-archive");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	private void assertGame(ArchiveReader reader, long game, int[] expected) {
+		byte[] squares = new byte[60];
+		int count = reader.getMoves(game, squares);
+		assertEquals("game " + game, count, expected.length);
+		for (int i = 0; i < count; i++) {
+			assertEquals("game " + game + " move " + i, squares[i], expected[i]);
+		}
+	}
+
+	private void append(ArchiveWriter writer, long from, long to) throws IOException {
+		for (long seed = from; seed < to; seed++) {
+			int[] game = TestGames.randomMoves(seed);
+			assertEquals(writer.append(game, game.length), seed);
+		}
+	}
+
+	@Test
+	public void testRandomAccess() throws IOException {
+		try (ArchiveWriter writer = new ArchiveWriter(dir)) {
+			append(writer, 0, 200);
+		}
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			assertEquals(reader.size(), 200);
+			for (long game = 199; game >= 0; game -= 7) {
+				assertGame(reader, game, TestGames.randomMoves(game));
+			}
+			Othello othello = reader.getGame(42);
+			assertTrue(othello.isGameOver());
+		}
+	}
+
+	@Test
+	public void testSmallSegments() throws IOException {
+		try (ArchiveWriter writer = new ArchiveWriter(dir, 1000)) {
+			append(writer, 0, 300);
+		}
+		assertTrue(GameArchive.getSegmentCount(dir) > 10);
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			assertEquals(reader.size(), 300);
+			for (long game = 0; game < 300; game++) {
+				assertGame(reader, game, TestGames.randomMoves(game));
+			}
+			long[] next = { 0 };
+			reader.forEach((game, squares, count) -> {
+				assertEquals(game, next[0]++);
+				assertEquals(count, TestGames.randomMoves(game).length);
+			});
+			assertEquals(next[0], 300);
+		}
+	}
+
+	@Test
+	public void testReopenAndAppend() throws IOException {
+		try (ArchiveWriter writer = new ArchiveWriter(dir, 2000)) {
+			append(writer, 0, 50);
+		}
+		try (ArchiveWriter writer = new ArchiveWriter(dir, 2000)) {
+			assertEquals(writer.size(), 50);
+			append(writer, 50, 120);
+		}
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			assertEquals(reader.size(), 120);
+			for (long game = 0; game < 120; game++) {
+				assertGame(reader, game, TestGames.randomMoves(game));
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentWriters() throws Exception {
+		int threads = 4, perThread = 250;
+		// which game number each seed was given
+		AtomicLongArray numbers = new AtomicLongArray(threads * perThread);
+		try (ArchiveWriter writer = new ArchiveWriter(dir, 4000)) {
+			Thread[] workers = new Thread[threads];
+			IOException[] failed = new IOException[1];
+			for (int t = 0; t < threads; t++) {
+				int first = t * perThread;
+				workers[t] = new Thread(() -> {
+					try {
+						for (int seed = first; seed < first + perThread; seed++) {
+							int[] game = TestGames.randomMoves(seed);
+							numbers.set(seed, writer.append(game, game.length));
+						}
+					} catch (IOException e) {
+						failed[0] = e;
+					}
+				});
+				workers[t].start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			assertNull(failed[0]);
+		}
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			assertEquals(reader.size(), threads * perThread);
+			boolean[] seen = new boolean[threads * perThread];
+			for (int seed = 0; seed < threads * perThread; seed++) {
+				int game = (int) numbers.get(seed);
+				assertFalse(seen[game]);
+				seen[game] = true;
+				assertGame(reader, game, TestGames.randomMoves(seed));
+			}
+		}
+	}
+
+	/**
+	 * A reader opened while games are being appended sees whole games only.
+	 */
+	@Test
+	public void testReadWhileAppending() throws Exception {
+		int[][] games = new int[50][];
+		for (int seed = 0; seed < games.length; seed++) {
+			games[seed] = TestGames.randomMoves(seed);
+		}
+		try (ArchiveWriter writer = new ArchiveWriter(dir)) {
+			append(writer, 0, 1);
+			IOException[] failed = new IOException[1];
+			Thread appender = new Thread(() -> {
+				try {
+					for (int n = 1; n < 5000; n++) {
+						int[] game = games[n % games.length];
+						writer.append(game, game.length);
+						writer.flush();
+					}
+				} catch (IOException e) {
+					failed[0] = e;
+				}
+			});
+			appender.start();
+			while (appender.isAlive()) {
+				try (ArchiveReader reader = new ArchiveReader(dir)) {
+					reader.forEach((game, squares, count) -> assertEquals(count,
+							games[(int) (game % games.length)].length));
+				}
+			}
+			appender.join();
+			assertNull(failed[0]);
+		}
+	}
+
+	@Test
+	public void testParallelRead() throws IOException {
+		try (ArchiveWriter writer = new ArchiveWriter(dir, 5000)) {
+			append(writer, 0, 500);
+		}
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			AtomicLongArray counts = new AtomicLongArray(500);
+			reader.forEachParallel((game, squares, count) -> counts.addAndGet((int) game, count + 1));
+			for (int game = 0; game < 500; game++) {
+				assertEquals(counts.get(game), TestGames.randomMoves(game).length + 1);
+			}
+		}
+	}
+
+	@Test
+	public void testCrashRecovery() throws IOException {
+		try (ArchiveWriter writer = new ArchiveWriter(dir)) {
+			append(writer, 0, 30);
+		}
+		// a writer killed while writing: half a record, and an index entry past it
+		Path data = GameArchive.getData(dir, 0), index = GameArchive.getIndex(dir, 0);
+		long dataSize = Files.size(data);
+		try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(java.nio.ByteBuffer.wrap(new byte[] { 40, 19, 18 }));
+		}
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(java.nio.ByteBuffer.allocate(12).putLong(0, dataSize));
+		}
+		try (ArchiveWriter writer = new ArchiveWriter(dir)) {
+			assertEquals(writer.size(), 30);
+			assertEquals(Files.size(data), dataSize);
+			append(writer, 30, 40);
+		}
+		try (ArchiveReader reader = new ArchiveReader(dir)) {
+			assertEquals(reader.size(), 40);
+			for (long game = 0; game < 40; game++) {
+				assertGame(reader, game, TestGames.randomMoves(game));
+			}
+		}
+	}
+}
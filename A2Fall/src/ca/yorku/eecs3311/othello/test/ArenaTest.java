@@ -0,0 +1,78 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class ArenaTest {
+	Path csv;
+
+	@Before
+	public void setUp() throws Exception {
+		csv = File.createTempFile("arena", ".csv").toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(csv);
+	}
+
+	@Test
+	public void testStopsWhenDecided() throws Exception {
+		Arena arena = new Arena();
+		arena.add("Greedy", PlayerFactory.of("Greedy"));
+		arena.add("Random", PlayerFactory.of("Random"));
+		arena.add("MonteCarlo", PlayerFactory.of("MonteCarlo:200"));
+		arena.setThreads(3);
+		arena.run(csv);
+		List<Arena.Pairing> pairings = arena.getPairings();
+		assertEquals(pairings.size(), 3);
+		assertEquals(pairings.get(0).getDecision(), Arena.Decision.H1);
+		assertTrue(pairings.get(0).getElo() > 0);
+		assertEquals(pairings.get(1).getDecision(), Arena.Decision.H0);
+		assertEquals(pairings.get(2).getDecision(), Arena.Decision.H0);
+		int games = 0;
+		for (Arena.Pairing pairing : pairings) {
+			assertTrue(pairing.toString(), pairing.getGames() < 1000);
+			games += pairing.getGames();
+		}
+		List<String> lines = Files.readAllLines(csv);
+		assertEquals(lines.get(0), Arena.CSV_HEADER);
+		assertEquals(lines.size(), games + 1);
+		double[] ratings = arena.getRatings();
+		assertEquals(ratings[0], 0, 0);
+		assertTrue(ratings[1] < ratings[0] && ratings[0] < ratings[2]);
+	}
+
+	@Test
+	public void testMaxGames() throws Exception {
+		Arena arena = new Arena();
+		arena.add("a", PlayerFactory.of("Random"));
+		arena.add("b", PlayerFactory.of("Random"));
+		arena.setBounds(-5, 5);
+		arena.setMaxGames(50);
+		arena.run(null);
+		Arena.Pairing pairing = arena.getPairings().get(0);
+		assertEquals(pairing.getGames(), 50);
+		assertEquals(pairing.getDecision(), Arena.Decision.NONE);
+	}
+
+	@Test
+	public void testLLR() {
+		assertEquals(Arena.llr(0, 0, 0, 0, 10), 0, 0);
+		assertTrue(Arena.llr(600, 0, 400, 0, 10) > Math.log(19));
+		assertTrue(Arena.llr(500, 0, 500, 0, 10) < 0);
+		assertTrue(Arena.llr(30, 0, 0, 0, 10) > Math.log(19));
+		assertEquals(Arena.expectedScore(0), 0.5, 1e-12);
+		assertEquals(Arena.elo(Arena.expectedScore(100)), 100, 1e-9);
+	}
+}
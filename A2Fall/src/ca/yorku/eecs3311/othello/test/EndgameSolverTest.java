@@ -0,0 +1,83 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.othello.model.EndgameSolver.Mode;
+
+public class EndgameSolverTest {
+	EndgameSolver solver;
+
+	@Before
+	public void setUp() throws Exception {
+		solver = new EndgameSolver();
+	}
+
+	@Test
+	public void testExact() {
+		for (long seed = 0; seed < 40; seed++) {
+			Othello othello = TestGames.randomGame(seed, 9);
+			if (othello.isGameOver())
+				continue;
+			int expected = TestGames.solve(othello);
+			int square = solver.solve(othello, Mode.EXACT);
+			assertEquals("seed " + seed, solver.getScore(), expected);
+			Othello child = othello.copy();
+			assertTrue(child.move(square / 8, square % 8));
+			assertEquals("the move achieves the score", TestGames.solve(child, othello.getWhosTurn()),
+					expected);
+		}
+	}
+
+	@Test
+	public void testWinLossDraw() {
+		for (long seed = 0; seed < 40; seed++) {
+			Othello othello = TestGames.randomGame(seed, 9);
+			if (othello.isGameOver())
+				continue;
+			int expected = TestGames.solve(othello);
+			int square = solver.solve(othello, Mode.WIN_LOSS_DRAW);
+			assertEquals("seed " + seed, Integer.signum(solver.getScore()), Integer.signum(expected));
+			Othello child = othello.copy();
+			assertTrue(child.move(square / 8, square % 8));
+			assertEquals(Integer.signum(TestGames.solve(child, othello.getWhosTurn())),
+					Integer.signum(expected));
+		}
+	}
+
+	@Test
+	public void testTableKeptBetweenSolves() {
+		Othello othello = TestGames.randomGame(7, 14);
+		solver.solve(othello, Mode.EXACT);
+		int score = solver.getScore();
+		long nodes = solver.getNodes();
+		solver.solve(othello, Mode.WIN_LOSS_DRAW);
+		assertEquals(Integer.signum(solver.getScore()), Integer.signum(score));
+		solver.solve(othello, Mode.EXACT);
+		assertEquals(solver.getScore(), score);
+		assertTrue(solver.getNodes() < nodes);
+	}
+
+	@Test
+	public void testPlayerSwitchesToSolver() {
+		Othello othello = TestGames.randomGame(3, 12);
+		PlayerAlphaBeta player = new PlayerAlphaBeta(othello, othello.getWhosTurn());
+		player.setEndgameEmpties(10);
+		Move move = player.getMove();
+		assertNull(player.getSolver());
+		assertTrue(othello.move(move.getRow(), move.getCol()));
+		while (othello.getWhosTurn() != player.getPlayer()) {
+			Move reply = new PlayerGreedy(othello, othello.getWhosTurn()).getMove();
+			othello.move(reply.getRow(), reply.getCol());
+		}
+		move = player.getMove();
+		assertNotNull(player.getSolver());
+		assertTrue(player.getSearchInfo().startsWith("solved"));
+		Othello child = othello.copy();
+		assertTrue(child.move(move.getRow(), move.getCol()));
+		assertEquals(TestGames.solve(child, player.getPlayer()), TestGames.solve(othello));
+	}
+}
@@ -0,0 +1,138 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class GameFileTest {
+	Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = Files.createTempFile("othello", ".game");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		Othello othello = TestGames.randomPlies(1, 20);
+		othello.saveGame(file.toString());
+		assertEquals(Files.size(file), 8 + 20);
+		Othello loaded = Othello.loadGame(file.toString());
+		assertEquals(loaded, othello);
+		assertEquals(loaded.getBoardString(), othello.getBoardString());
+	}
+
+	@Test
+	public void testWholeGamesRoundTrip() throws IOException {
+		for (long seed = 0; seed < 50; seed++) {
+			Othello othello = TestGames.randomPlies(seed, 60);
+			assertTrue(othello.isGameOver());
+			GameFile.save(othello, file);
+			Othello loaded = GameFile.load(file);
+			assertEquals("seed " + seed, loaded, othello);
+			assertTrue(loaded.isGameOver());
+			assertEquals(loaded.getWinner(), othello.getWinner());
+		}
+	}
+
+	@Test
+	public void testUndoneMovesCanBeRedone() throws IOException {
+		Othello othello = TestGames.randomPlies(2, 10);
+		Othello after = othello.copy();
+		othello.undo();
+		othello.undo();
+		GameFile.save(othello, file);
+		Othello loaded = GameFile.load(file);
+		assertEquals(loaded, othello);
+		assertTrue(loaded.redo());
+		assertTrue(loaded.redo());
+		assertFalse(loaded.redo());
+		assertEquals(loaded, after);
+	}
+
+	@Test
+	public void testCopyInProgress() throws IOException {
+		Othello copy = TestGames.randomPlies(6, 6).copy();
+		GameFile.save(copy, file);
+		assertEquals(GameFile.load(file), copy);
+		MoveList moves = new MoveList();
+		copy.getMoves(moves);
+		copy.move(moves.getRow(0), moves.getCol(0));
+		GameFile.save(copy, file);
+		Othello loaded = GameFile.load(file);
+		assertEquals(loaded, copy);
+		assertTrue(loaded.undo());
+		assertFalse("the copy starts after the sixth move", loaded.undo());
+	}
+
+	/**
+	 * With a history limit, the game is saved from the oldest position kept.
+	 */
+	@Test
+	public void testCustomStart() throws IOException {
+		Othello othello = TestGames.randomPlies(3, 12);
+		othello.setHistoryLimit(5);
+		TestGames.playRandom(othello, new Random(4), 8);
+		GameFile.save(othello, file);
+		assertEquals(Files.size(file), 8 + 19 + 5);
+		Othello loaded = GameFile.load(file);
+		assertEquals(loaded, othello);
+		assertTrue(loaded.replay(15));
+		assertFalse("older moves were not kept", loaded.replay(14));
+	}
+
+	@Test
+	public void testPackedInOneBuffer() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		for (long seed = 0; seed < 10; seed++) {
+			GameFile.encode(TestGames.randomPlies(seed, 60), buffer);
+		}
+		buffer.flip();
+		for (long seed = 0; seed < 10; seed++) {
+			assertEquals(GameFile.decode(buffer), TestGames.randomPlies(seed, 60));
+		}
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void testRejectsBadFiles() throws IOException {
+		Files.write(file, new byte[] { 1, 2, 3 });
+		try {
+			GameFile.load(file);
+			fail("not a game file");
+		} catch (IOException e) {
+		}
+		Othello othello = TestGames.randomPlies(5, 30);
+		GameFile.save(othello, file);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+		try {
+			GameFile.load(file);
+			fail("truncated");
+		} catch (IOException e) {
+		}
+		bytes[bytes.length - 1] ^= 0x40; // the wrong player moved
+		Files.write(file, bytes);
+		try {
+			GameFile.load(file);
+			fail("illegal move");
+		} catch (IOException e) {
+		}
+	}
+}
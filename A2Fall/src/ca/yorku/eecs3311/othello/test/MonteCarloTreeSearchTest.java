@@ -0,0 +1,92 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class MonteCarloTreeSearchTest {
+	MonteCarloTreeSearch search;
+
+	@Before
+	public void setUp() throws Exception {
+		search = new MonteCarloTreeSearch();
+	}
+
+	@Test
+	public void testFindsWinningMoves() {
+		for (long seed = 0; seed < 10; seed++) {
+			Othello othello = TestGames.randomGame(seed, 5);
+			if (othello.isGameOver())
+				continue;
+			char side = othello.getWhosTurn();
+			int square = search.search(othello, 60000, 20000);
+			Othello child = othello.copy();
+			assertTrue("legal move", child.move(square / 8, square % 8));
+			assertEquals("seed " + seed, Integer.signum(TestGames.solve(child, side)),
+					Integer.signum(TestGames.solve(othello, side)));
+		}
+	}
+
+	@Test
+	public void testPlayoutLimit() {
+		Othello othello = new Othello();
+		Othello copy = othello.copy();
+		search.search(othello, 60000, 1000);
+		assertEquals(search.getPlayouts(), 1000);
+		assertEquals(othello, copy);
+		assertTrue(search.getWinRate() > 0 && search.getWinRate() < 1);
+	}
+
+	@Test
+	public void testDeterministicWithOneThread() {
+		Othello othello = TestGames.randomGame(3, 40);
+		search.setSeed(5);
+		int square = search.search(othello, 60000, 2000);
+		double winRate = search.getWinRate();
+		search.setSeed(5);
+		assertEquals(search.search(othello, 60000, 2000), square);
+		assertEquals(search.getWinRate(), winRate, 0);
+	}
+
+	@Test
+	public void testThreads() {
+		search.setThreads(4);
+		for (long seed = 0; seed < 5; seed++) {
+			Othello othello = TestGames.randomGame(seed, 5);
+			if (othello.isGameOver())
+				continue;
+			char side = othello.getWhosTurn();
+			int square = search.search(othello, 60000, 20000);
+			assertTrue(search.getPlayouts() >= 20000);
+			Othello child = othello.copy();
+			assertTrue("legal move", child.move(square / 8, square % 8));
+			assertEquals("seed " + seed, Integer.signum(TestGames.solve(child, side)),
+					Integer.signum(TestGames.solve(othello, side)));
+		}
+		search.setThreads(1);
+	}
+
+	@Test
+	public void testNoMove() {
+		Othello othello = TestGames.randomGame(7, 0);
+		assertTrue(othello.isGameOver());
+		assertEquals(search.search(othello, 1000, 1000), -1);
+		assertEquals(search.getPlayouts(), 0);
+	}
+
+	@Test
+	public void testPlayerPlaysLegalMoves() {
+		Othello othello = new Othello();
+		PlayerMonteCarlo p1 = new PlayerMonteCarlo(othello, OthelloBoard.P1);
+		p1.setPlayoutLimit(200);
+		Player p2 = new PlayerRandom(othello, OthelloBoard.P2);
+		while (!othello.isGameOver()) {
+			Player player = othello.getWhosTurn() == OthelloBoard.P1 ? p1 : p2;
+			Move move = player.getMove();
+			assertTrue(move.toString(), othello.move(move.getRow(), move.getCol()));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class OpeningBookTest {
+	Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("othello", ".book").toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testWriteAndFind() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.add(i * 0x9E3779B97F4A7C15L, i % 64, i - 2500, i % 20);
+		}
+		builder.add(0, 17, 99, 3); // replaces the entry for hash 0
+		assertEquals(builder.write(file), 5000);
+		try (OpeningBook book = OpeningBook.open(file)) {
+			assertEquals(book.size(), 5000);
+			for (long i = 1; i < book.size(); i++) {
+				assertTrue("sorted", book.getHash(i - 1) < book.getHash(i));
+			}
+			for (int i = 1; i < 5000; i++) {
+				long r = book.find(i * 0x9E3779B97F4A7C15L);
+				assertTrue(r >= 0);
+				assertEquals(book.getMove(r), i % 64);
+				assertEquals(book.getScore(r), i - 2500);
+				assertEquals(book.getDepth(r), i % 20);
+			}
+			long r = book.find(0);
+			assertEquals(book.getMove(r), 17);
+			assertEquals(book.getScore(r), 99);
+			assertEquals(book.find(12345), -1);
+		}
+	}
+
+	@Test
+	public void testPlayerUsesBook() throws IOException {
+		Othello othello = new Othello();
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		AlphaBetaSearch search = new AlphaBetaSearch(
+				new TranspositionTable(1 << 20, TranspositionTable.Replacement.DEPTH_PREFERRED));
+		// the 4 first moves are symmetric to each other
+		assertEquals(builder.addPositions(othello, 1, 3, search), 2);
+		// a move that differs from what greedy would play in the initial position
+		builder.add(othello.getCanonicalHash(), Symmetry.transform(5 * 8 + 3, othello.getCanonicalSymmetry()), 0, 1);
+		builder.write(file);
+		try (OpeningBook book = OpeningBook.open(file)) {
+			assertEquals(book.size(), 2);
+			Player player = new PlayerGreedy(othello, OthelloBoard.P1);
+			player.setOpeningBook(book);
+			Move move = player.getMove();
+			assertEquals(move.getRow(), 5);
+			assertEquals(move.getCol(), 3);
+			othello.move(2, 4);
+			assertNotNull("positions after one move are in the book", book.getMove(othello));
+			othello.move(2, 5);
+			assertNull(book.getMove(othello));
+		}
+	}
+
+	@Test
+	public void testSymmetricPositionsShareRecord() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		AlphaBetaSearch search = new AlphaBetaSearch(
+				new TranspositionTable(1 << 20, TranspositionTable.Replacement.DEPTH_PREFERRED));
+		builder.addPositions(new Othello(), 2, 3, search);
+		builder.write(file);
+		try (OpeningBook book = OpeningBook.open(file)) {
+			long record = -1;
+			int canonicalMove = -1;
+			for (int square : new int[] { 20, 29, 34, 43 }) {
+				Othello othello = new Othello();
+				assertTrue(othello.move(square / 8, square % 8));
+				long r = book.find(othello.getCanonicalHash());
+				assertTrue(r >= 0);
+				Move move = book.getMove(othello);
+				// the same move, seen in each frame
+				int m = Symmetry.transform(move.getRow() * 8 + move.getCol(), othello.getCanonicalSymmetry());
+				assertTrue("book move is legal", othello.move(move.getRow(), move.getCol()));
+				if (record >= 0) {
+					assertEquals(r, record);
+					assertEquals(m, canonicalMove);
+				}
+				record = r;
+				canonicalMove = m;
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotABook() throws IOException {
+		Files.write(file, new byte[32]);
+		OpeningBook.open(file);
+	}
+}
@@ -0,0 +1,141 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class OthelloBitBoardTest {
+	OthelloBitBoard board;
+
+	@Before
+	public void setUp() throws Exception {
+		board = new OthelloBitBoard();
+		board.move(2, 4, OthelloBoard.P1);
+		board.move(2, 5, OthelloBoard.P2);
+		board.move(2, 6, OthelloBoard.P1);
+		board.move(2, 3, OthelloBoard.P2);
+		// Same position as in OthelloBoardTest
+		//   0 1 2 3 4 5 6 7
+		//  +-+-+-+-+-+-+-+-+
+		// 2| | | |O|X|X|X| |2
+		//  +-+-+-+-+-+-+-+-+
+		// 3| | | |O|O| | | |3
+		//  +-+-+-+-+-+-+-+-+
+		// 4| | | |O|X| | | |4
+		//  +-+-+-+-+-+-+-+-+
+	}
+
+	@Test
+	public void testInitialPosition() {
+		OthelloBitBoard b = new OthelloBitBoard();
+		assertEquals("Same as OthelloBoard", new OthelloBoard(Othello.DIMENSION).toString(), b.toString());
+		assertEquals(b.getDimension(), Othello.DIMENSION);
+		assertEquals(b.get(-1, 3), OthelloBoard.EMPTY);
+		assertEquals(b.get(3, 8), OthelloBoard.EMPTY);
+	}
+
+	@Test
+	public void testMove() {
+		String beforeMove = board.toString();
+		assertFalse("bad move spot occupied", board.move(2, 3, OthelloBoard.P1));
+		assertFalse("bad move no neighbours", board.move(4, 0, OthelloBoard.P1));
+		assertFalse("bad move no flips", board.move(3, 5, OthelloBoard.P1));
+		assertFalse("bad move off board", board.move(2, 8, OthelloBoard.P1));
+		assertEquals("board unchanged for bad moves", beforeMove, board.toString());
+
+		assertTrue(board.move(2, 2, OthelloBoard.P1));
+		for (int col = 2; col <= 6; col++) {
+			assertEquals(board.get(2, col), OthelloBoard.P1);
+		}
+		assertEquals(board.get(3, 3), OthelloBoard.P1);
+		assertEquals(board.get(3, 4), OthelloBoard.P2);
+		assertEquals("counting P1", board.getCount(OthelloBoard.P1), 7);
+		assertEquals("counting P2", board.getCount(OthelloBoard.P2), 2);
+	}
+
+	@Test
+	public void testGetMoves() {
+		OthelloBitBoard b = new OthelloBitBoard();
+		MoveList moves = new MoveList();
+		b.getMoves(OthelloBoard.P1, moves);
+		assertEquals("initial moves", moves.toString(), "[(2,4),(3,5),(4,2),(5,3)]");
+		assertEquals(moves.getSquare(0), 2 * 8 + 4);
+		assertEquals(b.getFlips(2, 4, OthelloBoard.P1), 1L << (3 * 8 + 4));
+		assertEquals(b.getFlips(2, 3, OthelloBoard.P1), 0L);
+		b.getMoves(OthelloBoard.EMPTY, moves);
+		assertTrue(moves.isEmpty());
+	}
+
+	@Test
+	public void testCopy() {
+		OthelloBitBoard copy = board.copy();
+		copy.move(2, 2, OthelloBoard.P1);
+		assertEquals(board.get(2, 2), OthelloBoard.EMPTY);
+		assertEquals(copy.get(2, 2), OthelloBoard.P1);
+	}
+
+	/**
+	 * Play random games on an OthelloBoard and an OthelloBitBoard side by side.
+	 * Every square must agree on legality, and the boards must agree after every
+	 * move.
+	 */
+	@Test
+	public void testAgreesWithOthelloBoard() {
+		Random rand = new Random(3311);
+		for (int game = 0; game < 50; game++) {
+			OthelloBoard reference = new OthelloBoard(Othello.DIMENSION);
+			OthelloBitBoard bits = new OthelloBitBoard();
+			char player = OthelloBoard.P1;
+			while (reference.hasMove() != OthelloBoard.EMPTY) {
+				assertEquals("hasMove", reference.hasMove(), bits.hasMove());
+				char allowed = reference.hasMove();
+				if (allowed != OthelloBoard.BOTH)
+					player = allowed;
+				int legal = 0;
+				long legalMask = 0;
+				for (int square = 0; square < 64; square++) {
+					OthelloBoard r = reference.copy();
+					OthelloBitBoard b = bits.copy();
+					boolean moved = r.move(square / 8, square % 8, player);
+					assertEquals("legal " + square, moved, b.move(square / 8, square % 8, player));
+					assertEquals("flips " + square, reference.getFlips(square / 8, square % 8, player),
+							bits.getFlips(square / 8, square % 8, player));
+					if (moved) {
+						legal++;
+						legalMask |= 1L << square;
+					}
+				}
+				assertEquals("getMoves", legalMask, bits.getMoves(player));
+				for (long m = legalMask; m != 0; m &= m - 1) {
+					int square = Long.numberOfTrailingZeros(m);
+					String before = bits.toString();
+					long flips = bits.makeMove(square / 8, square % 8, player);
+					bits.undoMove(square / 8, square % 8, player, flips);
+					assertEquals("undoMove", before, bits.toString());
+					assertEquals("undoMove hash", reference.getHash(), bits.getHash());
+				}
+				assertEquals("getMoves", legalMask, reference.getMoves(player));
+				int pick = rand.nextInt(legal);
+				for (int square = 0; square < 64; square++) {
+					if (reference.copy().move(square / 8, square % 8, player) && pick-- == 0) {
+						reference.move(square / 8, square % 8, player);
+						bits.move(square / 8, square % 8, player);
+						break;
+					}
+				}
+				assertEquals("board", reference.toString(), bits.toString());
+				assertEquals("hash", reference.getHash(), bits.getHash());
+				assertTrue("equals", bits.equals(reference) && reference.equals(bits));
+				assertEquals(reference.getCount(OthelloBoard.P1), bits.getCount(OthelloBoard.P1));
+				assertEquals(reference.getCount(OthelloBoard.P2), bits.getCount(OthelloBoard.P2));
+				player = OthelloBoard.otherPlayer(player);
+			}
+			assertEquals(bits.hasMove(), OthelloBoard.EMPTY);
+		}
+	}
+}
@@ -188,4 +188,36 @@ public class OthelloBoardTest {
 		assertEquals("counting P1",board.getCount(OthelloBoard.P1),7);
 		assertEquals("counting P2",board.getCount(OthelloBoard.P2),2);
 	}
+
+	@Test
+	public void testGetCountMatchesVisitor() {
+		board.move(2, 2, OthelloBoard.P1);
+		board.removeToken(2, 6);
+		char[] tokens = { OthelloBoard.P1, OthelloBoard.P2, OthelloBoard.EMPTY };
+		for (char token : tokens) {
+			CountTokensVisitor visitor = new CountTokensVisitor(token);
+			board.accept(visitor);
+			assertEquals("running count for '" + token + "'", visitor.getCount(), board.getCount(token));
+		}
+		assertEquals("counting EMPTY", board.getCount(OthelloBoard.EMPTY), 56);
+	}
+
+	@Test
+	public void testMakeMoveUndoMove() {
+		String before = board.toString();
+		long flips = board.makeMove(2, 2, OthelloBoard.P1);
+		assertEquals(Long.bitCount(flips), 2);
+		assertEquals(board.get(3, 3), OthelloBoard.P1);
+		board.undoMove(2, 2, OthelloBoard.P1, flips);
+		assertEquals("board restored", board.toString(), before);
+		assertEquals("counting P1", board.getCount(OthelloBoard.P1), 4);
+		assertEquals("counting EMPTY", board.getCount(OthelloBoard.EMPTY), 56);
+	}
+
+	@Test
+	public void testNoMovesForEmpty() {
+		assertEquals(board.getMoves(OthelloBoard.EMPTY), 0L);
+		assertEquals(board.getFlips(2, 2, OthelloBoard.EMPTY), 0L);
+		assertEquals(new OthelloBitBoard().getMoves(OthelloBoard.EMPTY), 0L);
+	}
 }
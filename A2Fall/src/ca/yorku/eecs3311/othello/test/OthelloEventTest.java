@@ -0,0 +1,162 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.util.EventChannel;
+
+public class OthelloEventTest {
+
+	private static void playRandom(Othello othello, long seed) {
+		TestGames.playRandom(othello, new Random(seed), 60); // to the end
+	}
+
+	@Test
+	public void testMoveEvents() {
+		Othello othello = new Othello();
+		List<OthelloEvent> events = new ArrayList<>();
+		othello.getEvents().subscribe(events::add);
+		assertTrue(othello.move(2, 4));
+		assertEquals(events.size(), 1);
+		OthelloEvent.MoveMade made = (OthelloEvent.MoveMade) events.get(0);
+		assertEquals(made.getPlayer(), OthelloBoard.P1);
+		assertEquals(made.getSquare(), 2 * 8 + 4);
+		assertEquals(made.getFlips(), 1L << (3 * 8 + 4));
+		assertEquals(made.getWhosTurn(), OthelloBoard.P2);
+		assertEquals(made.getNumMoves(), 1);
+		assertEquals(made.getCount(OthelloBoard.P1), 4);
+		assertEquals(made.getToken(3, 4), OthelloBoard.P1);
+
+		assertFalse(othello.move(0, 0));
+		assertEquals(events.size(), 1);
+
+		// players trying out moves publish nothing
+		long flips = othello.makeMove(2, 5);
+		othello.undoMove(2, 5, flips, OthelloBoard.P2);
+		assertEquals(events.size(), 1);
+
+		othello.undo();
+		OthelloEvent.Undo undo = (OthelloEvent.Undo) events.get(1);
+		assertEquals(undo.getSquare(), 2 * 8 + 4);
+		assertEquals(undo.getWhosTurn(), OthelloBoard.P1);
+		assertEquals(undo.getTokens(OthelloBoard.P1), new Othello().getTokens(OthelloBoard.P1));
+		othello.redo();
+		assertTrue(events.get(2) instanceof OthelloEvent.Redo);
+		assertEquals(events.get(2).getTokens(OthelloBoard.P1), made.getTokens(OthelloBoard.P1));
+		othello.reset();
+		assertTrue(events.get(3) instanceof OthelloEvent.Reset);
+		assertEquals(events.get(3).getNumMoves(), 0);
+	}
+
+	@Test
+	public void testPassAndGameOver() {
+		int passes = 0;
+		for (long seed = 0; seed < 200; seed++) {
+			Othello othello = new Othello();
+			List<OthelloEvent> events = new ArrayList<>();
+			othello.getEvents().subscribe(events::add);
+			playRandom(othello, seed);
+			OthelloEvent last = events.get(events.size() - 1);
+			assertTrue(last instanceof OthelloEvent.GameOver);
+			assertEquals(((OthelloEvent.GameOver) last).getWinner(), othello.getWinner());
+			for (int i = 0; i < events.size(); i++) {
+				if (events.get(i) instanceof OthelloEvent.Pass) {
+					passes++;
+					OthelloEvent.MoveMade before = (OthelloEvent.MoveMade) events.get(i - 1);
+					OthelloEvent.MoveMade after = (OthelloEvent.MoveMade) events.get(i + 1);
+					// the player who passes is not the one who moves twice
+					assertEquals(before.getPlayer(), after.getPlayer());
+					assertEquals(((OthelloEvent.Pass) events.get(i)).getPlayer(),
+							OthelloBoard.otherPlayer(before.getPlayer()));
+				}
+			}
+		}
+		assertTrue("some random games have a pass", passes > 0);
+	}
+
+	@Test
+	public void testCoalescingSlowSubscriber() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch busy = new CountDownLatch(1);
+			List<OthelloEvent> shown = Collections.synchronizedList(new ArrayList<>());
+			Othello othello = new Othello();
+			othello.getEvents().subscribe(event -> {
+				try {
+					busy.await(); // a slow subscriber, until the game is over
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				shown.add(event);
+			}, executor, 1, (older, newer) -> newer);
+			playRandom(othello, 3);
+			busy.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			// at most the first event, if the subscriber got it before the rest, then
+			// the latest of all the others
+			assertTrue(shown.size() <= 2);
+			OthelloEvent last = shown.get(shown.size() - 1);
+			assertTrue(last instanceof OthelloEvent.GameOver);
+			assertEquals(last.getTokens(OthelloBoard.P1), othello.getTokens(OthelloBoard.P1));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testBoundedQueueLosesNothing() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			EventChannel<Integer> channel = new EventChannel<>();
+			List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+			channel.subscribe(n -> {
+				if (n % 100 == 0)
+					Thread.yield();
+				received.add(n);
+			}, executor, 4);
+			List<Integer> direct = new ArrayList<>();
+			EventChannel.Subscription subscription = channel.subscribe(direct::add);
+			for (int n = 0; n < 10000; n++) {
+				channel.publish(n);
+			}
+			subscription.cancel();
+			channel.publish(-1);
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(direct.size(), 10000);
+			assertEquals(received.size(), 10001);
+			for (int n = 0; n < 10000; n++) {
+				assertEquals((int) received.get(n), n);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCancel() {
+		Othello othello = new Othello();
+		List<OthelloEvent> events = new ArrayList<>();
+		EventChannel.Subscription subscription = othello.getEvents().subscribe(events::add);
+		othello.move(2, 4);
+		subscription.cancel();
+		othello.move(2, 5);
+		assertEquals(events.size(), 1);
+		assertFalse(othello.getEvents().hasSubscribers());
+		// a copy has no subscribers of its own
+		othello.getEvents().subscribe(events::add);
+		assertFalse(othello.copy().getEvents().hasSubscribers());
+	}
+}
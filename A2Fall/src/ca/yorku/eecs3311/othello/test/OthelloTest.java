@@ -2,6 +2,8 @@ package ca.yorku.eecs3311.othello.test;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -106,4 +108,117 @@ public class OthelloTest {
 		assertEquals("After winner", o.isGameOver(), true);
 	}
 
+	@Test
+	public void testMakeMoveUndoMove() {
+		String before = othello.getBoardString();
+		char player = othello.getWhosTurn();
+		long flips = othello.makeMove(2, 2);
+		assertEquals("flipped (2,3) and (3,3)", flips, (1L << (2 * 8 + 3)) | (1L << (3 * 8 + 3)));
+		assertEquals(othello.getCount(OthelloBoard.P1), 7);
+		assertEquals(othello.getWhosTurn(), OthelloBoard.P2);
+		othello.undoMove(2, 2, flips, player);
+		assertEquals("board restored", othello.getBoardString(), before);
+		assertEquals(othello.getWhosTurn(), player);
+		assertEquals("illegal move", othello.makeMove(0, 0), 0L);
+		assertEquals("board unchanged", othello.getBoardString(), before);
+	}
+
+	@Test
+	public void testUndoRedo() {
+		Othello o = new Othello();
+		String[] boards = new String[moves.length + 1];
+		char[] turns = new char[moves.length + 1];
+		boards[0] = o.getBoardString();
+		turns[0] = o.getWhosTurn();
+		assertFalse("nothing to undo", o.undo());
+		for (int i = 0; i < moves.length; i++) {
+			o.move(moves[i].getRow(), moves[i].getCol());
+			boards[i + 1] = o.getBoardString();
+			turns[i + 1] = o.getWhosTurn();
+		}
+		for (int i = moves.length - 1; i >= 0; i--) {
+			assertTrue(o.undo());
+			assertEquals("undo " + i, o.getBoardString(), boards[i]);
+			assertEquals("undo turn " + i, o.getWhosTurn(), turns[i]);
+		}
+		assertFalse(o.undo());
+		for (int i = 1; i <= moves.length; i++) {
+			assertTrue(o.redo());
+			assertEquals("redo " + i, o.getBoardString(), boards[i]);
+			assertEquals("redo turn " + i, o.getWhosTurn(), turns[i]);
+		}
+		assertFalse(o.redo());
+		assertTrue(o.isGameOver());
+	}
+
+	@Test
+	public void testHistoryLimit() {
+		Othello o = new Othello();
+		o.setHistoryLimit(2);
+		String afterTwo = "";
+		for (int i = 0; i < 4; i++) {
+			o.move(moves[i].getRow(), moves[i].getCol());
+			if (i == 1)
+				afterTwo = o.getBoardString();
+		}
+		assertTrue(o.undo());
+		assertTrue(o.undo());
+		assertFalse("only 2 moves kept", o.undo());
+		assertEquals(o.getBoardString(), afterTwo);
+		o.move(2, 6);
+		assertFalse("redo cleared by a new move", o.redo());
+	}
+
+	@Test
+	public void testSaveLoadGame() throws Exception {
+		othello.move(2, 2);
+		othello.undo();
+		File file = File.createTempFile("othello", ".dat");
+		file.deleteOnExit();
+		othello.saveGame(file.getPath());
+		Othello loaded = Othello.loadGame(file.getPath());
+		assertEquals("position", loaded.getBoardString(), othello.getBoardString());
+		assertEquals("turn", loaded.getWhosTurn(), othello.getWhosTurn());
+		assertTrue("undone move can be redone", loaded.redo());
+		assertEquals(loaded.getCount(OthelloBoard.P1), 7);
+		assertTrue(loaded.replay(0));
+		assertEquals("replay to the start", loaded.getBoardString(), new Othello().getBoardString());
+	}
+
+	@Test
+	public void testGetMoves() {
+		Othello o = new Othello();
+		long initial = (1L << (2 * 8 + 4)) | (1L << (3 * 8 + 5)) | (1L << (4 * 8 + 2)) | (1L << (5 * 8 + 3));
+		assertEquals("initial moves for P1", o.getMoves(), initial);
+		o.move(2, 4);
+		assertEquals("P2 to move", o.getMoves(), o.getMoves(OthelloBoard.P2));
+		o.undo();
+		assertEquals("moves after undo", o.getMoves(), initial);
+		for (int i = 0; i < moves.length; i++) {
+			o.move(moves[i].getRow(), moves[i].getCol());
+		}
+		assertEquals("no moves once the game is over", o.getMoves(), 0L);
+		assertEquals(o.getMoves(OthelloBoard.P1) | o.getMoves(OthelloBoard.P2), 0L);
+	}
+
+	@Test
+	public void testHash() {
+		Othello a = new Othello(), b = new Othello();
+		assertEquals("same game", a.getHash(), b.getHash());
+		a.move(2, 4); a.move(2, 5); a.move(3, 5); a.move(2, 3);
+		b.move(3, 5); b.move(2, 5); b.move(2, 4);
+		assertTrue("different positions", a.getHash() != b.getHash());
+		assertFalse(a.equals(b));
+		b.move(2, 3);
+		// reached the same position by a different order of moves
+		assertEquals("transposition", a.getHash(), b.getHash());
+		assertTrue(a.equals(b));
+		assertEquals(a.hashCode(), b.hashCode());
+		long hash = a.getHash();
+		a.undo();
+		assertTrue(a.getHash() != hash);
+		a.redo();
+		assertEquals("restored by undo/redo", a.getHash(), hash);
+	}
+
 }
@@ -0,0 +1,108 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class PatternEvaluatorTest {
+
+	@Test
+	public void testIncrementalIndices() {
+		Random rand = new Random(1);
+		Othello othello = new Othello();
+		PatternEvaluator evaluator = new PatternEvaluator();
+		evaluator.setPosition(othello);
+		PatternEvaluator fresh = new PatternEvaluator();
+		MoveList moves = new MoveList();
+		long[] flips = new long[60];
+		int[] squares = new int[60];
+		char[] players = new char[60];
+		int n = 0;
+		while (!othello.isGameOver()) {
+			othello.getMoves(moves);
+			int i = rand.nextInt(moves.size());
+			players[n] = othello.getWhosTurn();
+			squares[n] = moves.getSquare(i);
+			flips[n] = othello.makeMove(moves.getRow(i), moves.getCol(i));
+			evaluator.move(squares[n], flips[n], players[n]);
+			n++;
+			fresh.setPosition(othello);
+			assertArrayEquals(evaluator.getIndices(), fresh.getIndices());
+			assertEquals(evaluator.evaluate(othello, OthelloBoard.P1), fresh.evaluate(othello, OthelloBoard.P1));
+		}
+		while (n > 0) {
+			n--;
+			othello.undoMove(squares[n] / 8, squares[n] % 8, flips[n], players[n]);
+			evaluator.undoMove(squares[n], flips[n], players[n]);
+		}
+		fresh.setPosition(new Othello());
+		assertArrayEquals(evaluator.getIndices(), fresh.getIndices());
+	}
+
+	@Test
+	public void testSymmetric() {
+		Othello othello = new Othello();
+		PatternEvaluator evaluator = new PatternEvaluator();
+		evaluator.setPosition(othello);
+		assertEquals("the initial position is even", evaluator.evaluate(othello, OthelloBoard.P1), 0);
+		othello.move(2, 4);
+		evaluator.setPosition(othello);
+		int score = evaluator.evaluate(othello, OthelloBoard.P1);
+		assertEquals(evaluator.evaluate(othello, OthelloBoard.P2), -score);
+		// the other first moves are symmetric to (2,4)
+		for (int[] move : new int[][] { { 3, 5 }, { 4, 2 }, { 5, 3 } }) {
+			Othello other = new Othello();
+			other.move(move[0], move[1]);
+			evaluator.setPosition(other);
+			assertEquals(evaluator.evaluate(other, OthelloBoard.P1), score);
+		}
+	}
+
+	@Test
+	public void testDefaultsPreferCorners() {
+		PatternWeights weights = PatternWeights.defaults();
+		// edge+2X: a P1 corner is good, a P1 X square next to an empty corner is bad
+		assertTrue(weights.get(0, 0, 1) > 0);
+		assertTrue(weights.get(0, 0, 2) < 0);
+		assertTrue(weights.get(0, 0, (int) Math.pow(3, 8)) < 0);
+	}
+
+	@Test
+	public void testSaveLoad() throws IOException {
+		Path file = File.createTempFile("othello", ".weights").toPath();
+		try {
+			float[][] w = new float[Patterns.PHASES][Patterns.PHASE_SIZE];
+			for (int phase = 0; phase < Patterns.PHASES; phase++) {
+				Arrays.fill(w[phase], phase * 0.25f);
+			}
+			w[3][7] = -1.5f;
+			PatternWeights.save(file, w);
+			PatternWeights weights = PatternWeights.load(file);
+			assertEquals(weights.get(2, 0, 0), 0.5f, 0);
+			assertEquals(weights.get(3, 0, 7), -1.5f, 0);
+			assertEquals(weights.get(11, 10, 80), 2.75f, 0);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testSearchWithPatterns() {
+		Othello othello = new Othello();
+		PlayerAlphaBeta player = new PlayerAlphaBeta(othello, OthelloBoard.P1);
+		player.setEvaluator(new PatternEvaluator());
+		player.setMaxDepth(4);
+		Move move = player.getMove();
+		assertTrue(othello.move(move.getRow(), move.getCol()));
+		assertEquals(player.getSearch().getDepthReached(), 4);
+	}
+}
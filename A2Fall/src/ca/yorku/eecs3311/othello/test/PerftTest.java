@@ -0,0 +1,54 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class PerftTest {
+
+	@Test
+	public void testReferenceCounts() {
+		for (int depth = 0; depth <= 8; depth++) {
+			assertEquals("depth " + depth, Perft.count(new OthelloBitBoard(), OthelloBoard.P1, depth),
+					Perft.REFERENCE_COUNTS[depth]);
+		}
+		assertEquals(Perft.count(new Othello(), 6), 8200);
+	}
+
+	@Test
+	public void testParallelReferenceCounts() {
+		for (int depth = 7; depth <= 9; depth++) {
+			assertEquals("depth " + depth, Perft.countParallel(new OthelloBitBoard(), OthelloBoard.P1, depth, 4),
+					Perft.REFERENCE_COUNTS[depth]);
+		}
+	}
+
+	/**
+	 * The array board and the bitboard generate the same moves, also with
+	 * passes and finished games along the way.
+	 */
+	@Test
+	public void testBoardsAgree() {
+		Random rand = new Random(1);
+		for (int game = 0; game < 20; game++) {
+			int[] squares = TestGames.randomMoves(game);
+			Othello othello = new Othello();
+			OthelloBoard array = new OthelloBoard(Othello.DIMENSION);
+			int plies = Math.min(squares.length, 10 + rand.nextInt(45));
+			for (int i = 0; i < plies; i++) {
+				array.move(squares[i] / 8, squares[i] % 8, othello.getWhosTurn());
+				othello.move(squares[i] / 8, squares[i] % 8);
+			}
+			if (othello.isGameOver())
+				continue;
+			Othello copy = othello.copy();
+			long count = Perft.count(othello, 4);
+			assertEquals("game " + game, Perft.count(array, othello.getWhosTurn(), 4), count);
+			assertEquals(othello, copy);
+		}
+	}
+}
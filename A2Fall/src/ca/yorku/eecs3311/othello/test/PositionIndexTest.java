@@ -0,0 +1,149 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.archive.*;
+import ca.yorku.eecs3311.othello.model.*;
+
+public class PositionIndexTest {
+	static final int GAMES = 400;
+
+	Path dir, file;
+	List<int[]> games = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("othello-index");
+		file = dir.resolve("positions.index");
+		try (ArchiveWriter writer = new ArchiveWriter(dir.resolve("archive"), 4000)) {
+			for (int seed = 0; seed < GAMES; seed++) {
+				int[] game = randomGame(seed);
+				games.add(game);
+				writer.append(game, game.length);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+		}
+	}
+
+	private int[] randomGame(long seed) {
+		// mostly the first move, so that games share openings
+		return TestGames.randomMoves(seed, (rand, n) -> rand.nextInt(4) == 0 ? rand.nextInt(n) : 0);
+	}
+
+	private Othello play(int[] game, int plies) {
+		Othello othello = new Othello();
+		for (int i = 0; i < plies; i++) {
+			othello.move(game[i] / 8, game[i] % 8);
+		}
+		return othello;
+	}
+
+	private static boolean symmetric(Othello a, Othello b) {
+		if (a.getWhosTurn() != b.getWhosTurn())
+			return false;
+		for (int s = 0; s < Symmetry.COUNT; s++) {
+			if (Symmetry.transform(a.getTokens(OthelloBoard.P1), s) == b.getTokens(OthelloBoard.P1)
+					&& Symmetry.transform(a.getTokens(OthelloBoard.P2), s) == b.getTokens(OthelloBoard.P2))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Check the index entry for position against replaying every game.
+	 */
+	private void assertPosition(PositionIndex index, Othello position) {
+		List<Long> expected = new ArrayList<>();
+		int[] results = new int[3];
+		for (int g = 0; g < GAMES; g++) {
+			int[] game = games.get(g);
+			for (int plies = 0; plies <= game.length; plies++) {
+				if (symmetric(play(game, plies), position)) {
+					expected.add((long) g);
+					char winner = play(game, game.length).getWinner();
+					results[winner == OthelloBoard.P1 ? 0 : winner == OthelloBoard.P2 ? 2 : 1]++;
+					break;
+				}
+			}
+		}
+		long i = index.find(position);
+		assertTrue(i >= 0);
+		assertEquals(index.getGameCount(i), expected.size());
+		assertEquals(index.getP1Wins(i), results[0]);
+		assertEquals(index.getDraws(i), results[1]);
+		assertEquals(index.getP2Wins(i), results[2]);
+		for (int n = 0; n < expected.size(); n++) {
+			assertEquals(index.getGame(i, n), (long) expected.get(n));
+		}
+	}
+
+	private PositionIndex build(int runEntries, int maxPly) throws IOException {
+		PositionIndexBuilder builder = new PositionIndexBuilder();
+		builder.setRunEntries(runEntries);
+		builder.setMaxPly(maxPly);
+		try (ArchiveReader archive = new ArchiveReader(dir.resolve("archive"))) {
+			builder.build(archive, file);
+		}
+		return PositionIndex.open(file);
+	}
+
+	@Test
+	public void testAgreesWithReplay() throws IOException {
+		// small runs, so that the merge has many
+		try (PositionIndex index = build(1000, 60)) {
+			assertTrue(index.size() > GAMES);
+			assertPosition(index, new Othello());
+			for (int g = 0; g < 5; g++) {
+				int[] game = games.get(g);
+				for (int plies : new int[] { 1, 4, 9, 20, game.length }) {
+					assertPosition(index, play(game, plies));
+				}
+			}
+			try (Stream<Path> files = Files.list(dir)) {
+				assertEquals(files.count(), 2); // the runs are gone
+			}
+		}
+	}
+
+	@Test
+	public void testSymmetriesFolded() throws IOException {
+		try (PositionIndex index = build(1 << 16, 10)) {
+			// the 4 first moves are symmetric, so every game reaches the same entry
+			long i = index.find(play(games.get(0), 1));
+			assertEquals(index.getGameCount(i), GAMES);
+			for (int square : new int[] { 20, 29, 34, 43 }) {
+				Othello othello = new Othello();
+				assertTrue(othello.move(square / 8, square % 8));
+				assertEquals(index.find(othello), i);
+			}
+			assertEquals(index.getGameCount(index.find(new Othello())), GAMES);
+		}
+	}
+
+	@Test
+	public void testMaxPly() throws IOException {
+		try (PositionIndex index = build(1 << 16, 10)) {
+			int[] game = games.get(7);
+			assertTrue(index.find(play(game, 10)) >= 0);
+			assertEquals(index.find(play(game, game.length)), -1);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class SymmetryTest {
+
+	/**
+	 * The squares of mask under symmetry s, one square at a time.
+	 */
+	private static long slowTransform(long mask, int s) {
+		long result = 0;
+		for (int square = 0; square < 64; square++) {
+			if ((mask & (1L << square)) != 0)
+				result |= 1L << Symmetry.transform(square, s);
+		}
+		return result;
+	}
+
+	@Test
+	public void testMaskAgreesWithSquares() {
+		Random rand = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			long mask = rand.nextLong();
+			for (int s = 0; s < Symmetry.COUNT; s++) {
+				assertEquals("symmetry " + s, Symmetry.transform(mask, s), slowTransform(mask, s));
+			}
+		}
+		// (row,col) = (0,1) goes to (1,0) when rows and columns are swapped
+		assertEquals(Symmetry.transform(1, 4), 8);
+		assertEquals(Symmetry.transform(0, 3), 63);
+	}
+
+	@Test
+	public void testInverse() {
+		for (int s = 0; s < Symmetry.COUNT; s++) {
+			for (int square = 0; square < 64; square++) {
+				assertEquals(Symmetry.transform(Symmetry.transform(square, s), Symmetry.inverse(s)), square);
+			}
+		}
+	}
+
+	@Test
+	public void testCanonical() {
+		Random rand = new Random(2);
+		Othello othello = new Othello();
+		MoveList moves = new MoveList();
+		while (!othello.isGameOver()) {
+			long p1 = othello.getTokens(OthelloBoard.P1), p2 = othello.getTokens(OthelloBoard.P2);
+			char turn = othello.getWhosTurn();
+			int c = Symmetry.canonical(p1, p2);
+			long canonicalP1 = Symmetry.transform(p1, c), canonicalP2 = Symmetry.transform(p2, c);
+			assertEquals(othello.getCanonicalHash(), Zobrist.hash(canonicalP1, canonicalP2) ^ Zobrist.side(turn));
+			for (int s = 0; s < Symmetry.COUNT; s++) {
+				long imageP1 = Symmetry.transform(p1, s), imageP2 = Symmetry.transform(p2, s);
+				// every image has the same canonical form, and none is less
+				int d = Symmetry.canonical(imageP1, imageP2);
+				assertEquals(Symmetry.transform(imageP1, d), canonicalP1);
+				assertEquals(Symmetry.transform(imageP2, d), canonicalP2);
+				assertEquals(Symmetry.canonicalHash(imageP1, imageP2, turn), othello.getCanonicalHash());
+				assertTrue(imageP1 > canonicalP1 || (imageP1 == canonicalP1 && imageP2 >= canonicalP2));
+			}
+			// moves map between the frames
+			long canonicalMoves = OthelloBitBoard.moves(turn == OthelloBoard.P1 ? canonicalP1 : canonicalP2,
+					turn == OthelloBoard.P1 ? canonicalP2 : canonicalP1);
+			assertEquals(Symmetry.transform(othello.getMoves(), c), canonicalMoves);
+			othello.getMoves(moves);
+			int k = rand.nextInt(moves.size());
+			othello.move(moves.getRow(k), moves.getCol(k));
+		}
+	}
+
+	@Test
+	public void testInitialPosition() {
+		Othello othello = new Othello();
+		// all 4 first moves lead to the same canonical position
+		long hash = 0;
+		for (int square : new int[] { 20, 29, 34, 43 }) {
+			Othello next = othello.copy();
+			assertTrue(next.move(square / 8, square % 8));
+			if (hash != 0)
+				assertEquals(next.getCanonicalHash(), hash);
+			hash = next.getCanonicalHash();
+		}
+		assertTrue(hash != othello.getCanonicalHash());
+	}
+}
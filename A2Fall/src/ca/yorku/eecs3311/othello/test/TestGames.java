@@ -0,0 +1,121 @@
+package ca.yorku.eecs3311.othello.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+/**
+ * Positions and games for the tests: random games, repeatable from a seed,
+ * and plain minimax to check the engines against.
+ */
+class TestGames {
+
+	/**
+	 * Play random moves until only empties empty squares are left.
+	 */
+	static Othello randomGame(long seed, int empties) {
+		Random rand = new Random(seed);
+		Othello othello = new Othello();
+		MoveList moves = new MoveList();
+		while (!othello.isGameOver() && othello.getCount(OthelloBoard.EMPTY) > empties) {
+			othello.getMoves(moves);
+			int i = rand.nextInt(moves.size());
+			othello.move(moves.getRow(i), moves.getCol(i));
+		}
+		return othello;
+	}
+
+	/**
+	 * Play random moves on othello, until plies moves are made or the game is
+	 * over.
+	 */
+	static void playRandom(Othello othello, Random rand, int plies) {
+		MoveList moves = new MoveList();
+		for (int n = 0; n < plies && !othello.isGameOver(); n++) {
+			othello.getMoves(moves);
+			int i = rand.nextInt(moves.size());
+			othello.move(moves.getRow(i), moves.getCol(i));
+		}
+	}
+
+	/**
+	 * Play plies random moves from the initial position, fewer if the game ends
+	 * first.
+	 */
+	static Othello randomPlies(long seed, int plies) {
+		Othello othello = new Othello();
+		playRandom(othello, new Random(seed), plies);
+		return othello;
+	}
+
+	/**
+	 * Play a random game to the end.
+	 *
+	 * @return the moves, as row*8+col
+	 */
+	static int[] randomMoves(long seed) {
+		return randomMoves(seed, (rand, n) -> rand.nextInt(n));
+	}
+
+	/**
+	 * Chooses one of the legal moves of a random game.
+	 */
+	interface Chooser {
+		/**
+		 *
+		 * @return in {0,...,n-1}, the move to play of the n legal moves
+		 */
+		int choose(Random rand, int n);
+	}
+
+	/**
+	 * Play a game to the end, choosing each move with chooser.
+	 *
+	 * @return the moves, as row*8+col
+	 */
+	static int[] randomMoves(long seed, Chooser chooser) {
+		Random rand = new Random(seed);
+		Othello othello = new Othello();
+		MoveList moves = new MoveList();
+		int[] squares = new int[60];
+		int count = 0;
+		while (!othello.isGameOver()) {
+			othello.getMoves(moves);
+			int i = chooser.choose(rand, moves.size());
+			othello.move(moves.getRow(i), moves.getCol(i));
+			squares[count++] = moves.getSquare(i);
+		}
+		return Arrays.copyOf(squares, count);
+	}
+
+	/**
+	 * Plain minimax to the end of the game.
+	 *
+	 * @return the final disc difference for side, with both players playing
+	 *         their best
+	 */
+	static int solve(Othello othello, char side) {
+		if (othello.isGameOver())
+			return othello.getCount(side) - othello.getCount(OthelloBoard.otherPlayer(side));
+		boolean max = othello.getWhosTurn() == side;
+		int best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		for (long m = othello.getMoves(); m != 0; m &= m - 1) {
+			int square = Long.numberOfTrailingZeros(m);
+			Othello child = othello.copy();
+			child.move(square / 8, square % 8);
+			int value = solve(child, side);
+			best = max ? Math.max(best, value) : Math.min(best, value);
+		}
+		return best;
+	}
+
+	/**
+	 *
+	 * @return the final disc difference for the player to move, 0 if the game
+	 *         is over
+	 */
+	static int solve(Othello othello) {
+		return othello.isGameOver() ? 0 : solve(othello, othello.getWhosTurn());
+	}
+}
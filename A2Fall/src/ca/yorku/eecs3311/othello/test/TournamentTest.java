@@ -0,0 +1,90 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+
+public class TournamentTest {
+
+	@Test
+	public void testSameResultsWithAnyThreads() {
+		Tournament one = new Tournament(PlayerRandom::new, PlayerRandom::new);
+		one.setThreads(1);
+		one.setSeed(42);
+		one.play(1000);
+		assertEquals(one.getGames(), 1000);
+		assertEquals(one.getP1Wins() + one.getP2Wins() + one.getDraws(), 1000);
+
+		Tournament four = new Tournament(PlayerRandom::new, PlayerRandom::new);
+		four.setThreads(4);
+		four.setSeed(42);
+		four.play(1000);
+		assertEquals(four.getP1Wins(), one.getP1Wins());
+		assertEquals(four.getP2Wins(), one.getP2Wins());
+		assertEquals(four.getDraws(), one.getDraws());
+
+		four.setSeed(43);
+		four.play(1000);
+		assertEquals(four.getGames(), 1000);
+		assertNotEquals(four.getP1Wins(), one.getP1Wins());
+	}
+
+	@Test
+	public void testFixedBudgetsRepeat() {
+		long[] p1Wins = new long[2];
+		for (int threads = 1; threads <= 2; threads++) {
+			Tournament tournament = new Tournament(PlayerFactory.of("AlphaBeta:1"), PlayerFactory.of("MonteCarlo:300"));
+			tournament.setThreads(threads);
+			tournament.play(40);
+			p1Wins[threads - 1] = tournament.getP1Wins();
+		}
+		assertEquals(p1Wins[1], p1Wins[0]);
+		assertTrue("some games are lost", p1Wins[0] < 40);
+	}
+
+	@Test
+	public void testGreedyBeatsRandom() {
+		Tournament tournament = new Tournament(PlayerFactory.of("Greedy"), PlayerFactory.of("Random"));
+		tournament.play(2000);
+		double[] interval = Tournament.confidenceInterval(tournament.getP1Wins(), tournament.getGames());
+		assertTrue(tournament.toString(), interval[0] > 0.5);
+		assertTrue(tournament.getGamesPerSecond() > 0);
+	}
+
+	@Test
+	public void testAlphaBetaDepthDoesNotSolve() {
+		Othello othello = TestGames.randomGame(7, 12);
+		Random rand = new Random(7);
+		char player = othello.getWhosTurn();
+		PlayerAlphaBeta searched = (PlayerAlphaBeta) PlayerFactory.of("AlphaBeta:2").create(othello, player,
+				rand);
+		searched.getMove();
+		assertNull("the endgame is searched to depth 2", searched.getSolver());
+		assertEquals(searched.getSearch().getDepthReached(), 2);
+		PlayerAlphaBeta solved = (PlayerAlphaBeta) PlayerFactory.of("AlphaBeta:2:e12").create(othello, player,
+				rand);
+		solved.getMove();
+		assertNotNull(solved.getSolver());
+		try {
+			PlayerFactory.of("Greedy:1:e12");
+			fail("only AlphaBeta solves endgames");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testConfidenceInterval() {
+		double[] interval = Tournament.confidenceInterval(5000, 10000);
+		assertEquals(interval[0], 0.4902, 0.0001);
+		assertEquals(interval[1], 0.5098, 0.0001);
+		interval = Tournament.confidenceInterval(0, 10);
+		assertEquals(interval[0], 0, 0);
+		assertTrue(interval[1] > 0.2 && interval[1] < 0.35);
+		interval = Tournament.confidenceInterval(10, 10);
+		assertEquals(interval[1], 1, 1e-9);
+	}
+}
@@ -0,0 +1,86 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.othello.training.*;
+
+public class TrainerTest {
+	Path log, weights;
+
+	@Before
+	public void setUp() throws Exception {
+		log = File.createTempFile("othello", ".log").toPath();
+		weights = File.createTempFile("othello", ".weights").toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(log);
+		Files.deleteIfExists(weights);
+	}
+
+	@Test
+	public void testParseFormat() {
+		int[] moves = GameLog.parse("e3f3");
+		assertArrayEquals(moves, new int[] { 2 * 8 + 4, 2 * 8 + 5 });
+		assertEquals(GameLog.format(moves, 2), "e3f3");
+		assertNull("not a legal move", GameLog.parse("a1"));
+		assertNull(GameLog.parse("e3f"));
+		assertNull(GameLog.parse("z9"));
+	}
+
+	@Test
+	public void testSelfPlayIsRepeatable() {
+		SelfPlayRecorder recorder = new SelfPlayRecorder();
+		recorder.setDepth(1);
+		String game = recorder.play(7);
+		assertEquals(recorder.play(7), game);
+		int[] moves = GameLog.parse(game);
+		assertNotNull(moves);
+		Othello othello = new Othello();
+		for (int move : moves) {
+			assertTrue(othello.move(move / 8, move % 8));
+		}
+		assertTrue(othello.isGameOver());
+	}
+
+	@Test
+	public void testTrainingConverges() throws IOException {
+		SelfPlayRecorder recorder = new SelfPlayRecorder();
+		recorder.setDepth(1);
+		recorder.record(log, 40, 0);
+		Files.write(log, "# a comment\nnot a game\n".getBytes(), java.nio.file.StandardOpenOption.APPEND);
+		Trainer trainer = new Trainer();
+		trainer.setBatchGames(10);
+		double first = trainer.epoch(log);
+		assertTrue(trainer.getPositions() > 40 * 50);
+		double last = first;
+		for (int i = 0; i < 4; i++) {
+			last = trainer.epoch(log);
+		}
+		assertTrue(first + " > " + last, last < first);
+		trainer.save(weights);
+		PatternWeights loaded = PatternWeights.load(weights);
+		assertEquals(loaded.get(5, 0, 1), trainer.getWeights()[5][1], 1.0 / PatternWeights.SCALE);
+	}
+
+	@Test
+	public void testSkipsBadLines() throws IOException {
+		Files.write(log, "e3f3\n\n# comment\ne3e3\n".getBytes());
+		try (GameLog in = new GameLog(log)) {
+			assertNotNull(in.next());
+			assertNull(in.next());
+			assertEquals(in.getSkipped(), 1);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package ca.yorku.eecs3311.othello.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.othello.model.TranspositionTable.Replacement;
+
+public class TranspositionTableTest {
+	TranspositionTable table;
+
+	@Before
+	public void setUp() throws Exception {
+		table = new TranspositionTable(1 << 10, Replacement.DEPTH_PREFERRED); // 64 entries
+		table.setCounting(true);
+	}
+
+	@Test
+	public void testSize() {
+		assertEquals(table.getSize(), 64);
+		assertEquals(new TranspositionTable(1000, Replacement.TWO_TIER).getSize(), 32);
+	}
+
+	@Test
+	public void testStoreProbe() {
+		long hash = new Othello().getHash();
+		assertEquals("empty table", table.probe(hash), TranspositionTable.MISS);
+		table.store(hash, 7, TranspositionTable.LOWER, -123, 2 * 8 + 4);
+		long entry = table.probe(hash);
+		assertEquals(TranspositionTable.getDepth(entry), 7);
+		assertEquals(TranspositionTable.getBound(entry), TranspositionTable.LOWER);
+		assertEquals(TranspositionTable.getScore(entry), -123);
+		assertEquals(TranspositionTable.getMove(entry), 2 * 8 + 4);
+		table.store(hash, 3, TranspositionTable.EXACT, 5, -1);
+		entry = table.probe(hash);
+		assertEquals("same position is overwritten", TranspositionTable.getDepth(entry), 3);
+		assertEquals(TranspositionTable.getMove(entry), -1);
+		assertEquals(table.getHits(), 2);
+		assertEquals(table.getMisses(), 1);
+	}
+
+	@Test
+	public void testCountingOff() {
+		table = new TranspositionTable(1 << 10, Replacement.DEPTH_PREFERRED);
+		table.store(1, 5, TranspositionTable.EXACT, 0, 0);
+		assertTrue(table.probe(1) != TranspositionTable.MISS);
+		assertEquals(table.probe(2), TranspositionTable.MISS);
+		assertEquals(table.getHits() + table.getMisses() + table.getStores(), 0);
+	}
+
+	@Test
+	public void testDepthPreferred() {
+		// 1, 1+64 and 1+128 all land in the same bucket
+		table.store(1, 5, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 64, 9, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 128, 2, TranspositionTable.EXACT, 0, 0);
+		assertEquals("shallow result dropped", table.probe(1 + 128), TranspositionTable.MISS);
+		assertEquals(table.getCollisions(), 1);
+		table.store(1 + 128, 6, TranspositionTable.EXACT, 0, 0);
+		assertTrue(table.probe(1 + 128) != TranspositionTable.MISS);
+		assertEquals("shallower entry replaced", table.probe(1), TranspositionTable.MISS);
+		assertTrue(table.probe(1 + 64) != TranspositionTable.MISS);
+	}
+
+	@Test
+	public void testEmptyEntryFilledFirst() {
+		table.store(1, 0, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 64, 0, TranspositionTable.EXACT, 0, 0);
+		assertTrue("both kept", table.probe(1) != TranspositionTable.MISS);
+		assertTrue(table.probe(1 + 64) != TranspositionTable.MISS);
+		table = new TranspositionTable(1 << 10, Replacement.ALWAYS_REPLACE);
+		table.store(1, 3, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 64, 7, TranspositionTable.EXACT, 0, 0);
+		assertTrue("both kept", table.probe(1) != TranspositionTable.MISS);
+		assertTrue(table.probe(1 + 64) != TranspositionTable.MISS);
+	}
+
+	@Test
+	public void testTwoTier() {
+		table = new TranspositionTable(1 << 10, Replacement.TWO_TIER);
+		table.store(1, 9, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 64, 2, TranspositionTable.EXACT, 0, 0);
+		table.store(1 + 128, 1, TranspositionTable.EXACT, 0, 0);
+		assertTrue("deep entry kept", table.probe(1) != TranspositionTable.MISS);
+		assertTrue("newest entry kept", table.probe(1 + 128) != TranspositionTable.MISS);
+		assertEquals(table.probe(1 + 64), TranspositionTable.MISS);
+	}
+}
@@ -0,0 +1,103 @@
+package ca.yorku.eecs3311.othello.training;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ca.yorku.eecs3311.othello.model.Othello;
+
+/**
+ * A text log of games, one game per line, read one game at a time so a log of
+ * any size can be streamed. A game is its moves in the usual notation, a
+ * column letter a-h and a row number 1-8 for each move, with no separators:
+ * row 2, col 4 is "e3", so the game starting (2,4) (2,5) is "e3f3...". Passes
+ * are not written, they follow from the moves. Blank lines and lines starting
+ * with # are skipped.
+ *
+ * @author Helena
+ *
+ */
+public class GameLog implements Closeable {
+	private final BufferedReader in;
+	private long lineNumber = 0, skipped = 0;
+
+	public GameLog(Path file) throws IOException {
+		this.in = Files.newBufferedReader(file, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 *
+	 * @return the moves of the next game as row*8+col, null at the end of the log.
+	 *         Lines that are not legal games are skipped and counted.
+	 * @throws IOException
+	 */
+	public int[] next() throws IOException {
+		String line;
+		while ((line = this.in.readLine()) != null) {
+			this.lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			int[] moves = parse(line);
+			if (moves != null)
+				return moves;
+			this.skipped++;
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @return the number of lines that were not legal games
+	 */
+	public long getSkipped() {
+		return this.skipped;
+	}
+
+	public long getLineNumber() {
+		return this.lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	/**
+	 *
+	 * @param line a game in the log's notation
+	 * @return the moves as row*8+col, null if line is not a legal game
+	 */
+	public static int[] parse(String line) {
+		if (line.length() % 2 != 0 || line.length() > 120)
+			return null;
+		int[] moves = new int[line.length() / 2];
+		Othello othello = new Othello();
+		for (int i = 0; i < moves.length; i++) {
+			int col = line.charAt(2 * i) - 'a', row = line.charAt(2 * i + 1) - '1';
+			if (col < 0 || col > 7 || row < 0 || row > 7)
+				return null;
+			if (othello.makeMove(row, col) == 0)
+				return null;
+			moves[i] = row * 8 + col;
+		}
+		return moves;
+	}
+
+	/**
+	 *
+	 * @param moves the moves of a game as row*8+col
+	 * @param count the number of moves
+	 * @return the game in the log's notation
+	 */
+	public static String format(int[] moves, int count) {
+		StringBuilder s = new StringBuilder(2 * count);
+		for (int i = 0; i < count; i++) {
+			s.append((char) ('a' + moves[i] % 8)).append((char) ('1' + moves[i] / 8));
+		}
+		return s.toString();
+	}
+}
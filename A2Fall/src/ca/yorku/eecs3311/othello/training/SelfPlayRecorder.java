@@ -0,0 +1,135 @@
+package ca.yorku.eecs3311.othello.training;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import ca.yorku.eecs3311.othello.model.Move;
+import ca.yorku.eecs3311.othello.model.MoveList;
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+import ca.yorku.eecs3311.othello.model.Player;
+import ca.yorku.eecs3311.othello.model.PlayerAlphaBeta;
+
+/**
+ * Plays PlayerAlphaBeta against itself and appends the games to a GameLog, to
+ * train evaluation weights on. The first moves of each game are random, so the
+ * games differ. Games are played in parallel, one per core, and each game's
+ * random moves come from its own seed, so a run can be repeated.
+ *
+ * @author Helena
+ *
+ */
+public class SelfPlayRecorder {
+	private int randomMoves = 10;
+	private int depth = 4;
+	private int endgameEmpties = 12;
+
+	public void setRandomMoves(int randomMoves) {
+		this.randomMoves = randomMoves;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	public void setEndgameEmpties(int endgameEmpties) {
+		this.endgameEmpties = endgameEmpties;
+	}
+
+	/**
+	 * Play one game.
+	 *
+	 * @param seed chooses the random opening moves
+	 * @return the game in GameLog notation
+	 */
+	public String play(long seed) {
+		Random rand = new Random(seed);
+		Othello othello = new Othello();
+		Player[] players = new Player[2];
+		for (int i = 0; i < 2; i++) {
+			PlayerAlphaBeta player = new PlayerAlphaBeta(othello, i == 0 ? OthelloBoard.P1 : OthelloBoard.P2);
+			player.setMaxDepth(this.depth);
+			player.setTimeLimit(Long.MAX_VALUE / 2000000);
+			player.setEndgameEmpties(this.endgameEmpties);
+			players[i] = player;
+		}
+		int[] moves = new int[60];
+		int count = 0;
+		MoveList legal = new MoveList();
+		while (!othello.isGameOver()) {
+			Move move;
+			if (count < this.randomMoves) {
+				othello.getMoves(legal);
+				int i = rand.nextInt(legal.size());
+				move = new Move(legal.getRow(i), legal.getCol(i));
+			} else {
+				move = players[othello.getWhosTurn() == OthelloBoard.P1 ? 0 : 1].getMove();
+			}
+			othello.move(move.getRow(), move.getCol());
+			moves[count++] = move.getRow() * 8 + move.getCol();
+		}
+		return GameLog.format(moves, count);
+	}
+
+	/**
+	 * Play games and append them to file.
+	 *
+	 * @param file  the log to append to
+	 * @param games the number of games
+	 * @param seed  the seed of the first game, game i uses seed+i
+	 * @throws IOException
+	 */
+	public void record(Path file, int games, long seed) throws IOException {
+		AtomicInteger done = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			IntStream.range(0, games).parallel().forEach(i -> {
+				String game = this.play(seed + i);
+				synchronized (out) {
+					try {
+						out.write(game);
+						out.newLine();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				int n = done.incrementAndGet();
+				if (n % 100 == 0)
+					System.out.println(n + " games, " + n * 1000L / Math.max(1, System.currentTimeMillis() - start)
+							+ " games/s");
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Record self play games.
+	 *
+	 * @param args the log file, the number of games (default 1000), the search
+	 *             depth (default 4) and the first seed (default 0)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: SelfPlayRecorder log-file [games] [depth] [seed]");
+			System.exit(1);
+		}
+		SelfPlayRecorder recorder = new SelfPlayRecorder();
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		if (args.length > 2)
+			recorder.setDepth(Integer.parseInt(args[2]));
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		recorder.record(Paths.get(args[0]), games, seed);
+	}
+}
@@ -0,0 +1,275 @@
+package ca.yorku.eecs3311.othello.training;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ca.yorku.eecs3311.othello.model.Othello;
+import ca.yorku.eecs3311.othello.model.OthelloBoard;
+import ca.yorku.eecs3311.othello.model.PatternWeights;
+import ca.yorku.eecs3311.othello.model.Patterns;
+
+/**
+ * Fits the weights of the Patterns to recorded games, so that a position's
+ * score predicts the final disc difference of the game it came from.
+ *
+ * The log is streamed, a batch of games at a time, and read again for each
+ * epoch, so the size of the log is not limited by memory. Each batch is worked
+ * in two parallel steps:
+ * <ol>
+ * <li>the games are replayed and every position turned into its features (the
+ * index of each pattern instance, and the mobility) across all cores,</li>
+ * <li>a mini-batch gradient descent step is taken on the squared error, one
+ * thread per game phase, since each phase has its own weights.</li>
+ * </ol>
+ * Both steps give the same result however many threads run them.
+ *
+ * After each epoch the root mean squared error, in discs, and the positions
+ * per second are logged, to follow convergence.
+ *
+ * @author Helena
+ *
+ */
+public class Trainer {
+	private final float[][] weights = new float[Patterns.PHASES][Patterns.PHASE_SIZE];
+	private final float[][] gradients = new float[Patterns.PHASES][Patterns.PHASE_SIZE];
+	private final int[][] counts = new int[Patterns.PHASES][Patterns.PHASE_SIZE];
+	private final int instances = Patterns.getInstanceCount();
+
+	private int batchGames = 1000;
+	private float learningRate = 0.01f;
+
+	// the features of the positions of the current batch
+	private int[] features = new int[0];
+	private int[] phases = new int[0], mobility = new int[0];
+	private float[] targets = new float[0];
+	private int positions;
+
+	// error in the last epoch, for each phase
+	private final double[] squaredError = new double[Patterns.PHASES];
+	private final long[] phaseCount = new long[Patterns.PHASES];
+
+	public void setBatchGames(int batchGames) {
+		this.batchGames = batchGames;
+	}
+
+	/**
+	 * 
+	 * @param learningRate how far each weight moves against its mean error in a
+	 *                     batch. All the instances of a position move at once,
+	 *                     so rates much above 1/Patterns.getInstanceCount()
+	 *                     diverge.
+	 */
+	public void setLearningRate(float learningRate) {
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * One pass over the log.
+	 *
+	 * @return the root mean squared error over the epoch, in discs
+	 * @throws IOException
+	 */
+	public double epoch(Path log) throws IOException {
+		Arrays.fill(this.squaredError, 0);
+		Arrays.fill(this.phaseCount, 0);
+		try (GameLog in = new GameLog(log)) {
+			List<int[]> games = new ArrayList<>(this.batchGames);
+			int[] game;
+			do {
+				game = in.next();
+				if (game != null)
+					games.add(game);
+				if (games.size() == this.batchGames || (game == null && !games.isEmpty())) {
+					this.extract(games);
+					this.step();
+					games.clear();
+				}
+			} while (game != null);
+		}
+		return this.getError();
+	}
+
+	/**
+	 * Replay games in parallel, filling features, phases, mobility and targets
+	 * with one entry per position. Each game's positions go in a slice of their
+	 * own, at an offset worked out first.
+	 */
+	void extract(List<int[]> games) {
+		int[] offsets = new int[games.size() + 1];
+		for (int g = 0; g < games.size(); g++) {
+			offsets[g + 1] = offsets[g] + games.get(g).length;
+		}
+		this.positions = offsets[games.size()];
+		if (this.targets.length < this.positions) {
+			int capacity = this.positions * 2;
+			this.features = new int[capacity * this.instances];
+			this.phases = new int[capacity];
+			this.mobility = new int[capacity];
+			this.targets = new float[capacity];
+		}
+		IntStream.range(0, games.size()).parallel().forEach(g -> this.extract(games.get(g), offsets[g]));
+	}
+
+	private void extract(int[] moves, int offset) {
+		Othello othello = new Othello();
+		int[] scratch = new int[this.instances];
+		for (int i = 0; i < moves.length; i++) {
+			int p = offset + i;
+			long p1 = othello.getTokens(OthelloBoard.P1), p2 = othello.getTokens(OthelloBoard.P2);
+			Patterns.getFeatures(p1, p2, scratch);
+			System.arraycopy(scratch, 0, this.features, p * this.instances, this.instances);
+			this.phases[p] = Patterns.getPhase(i);
+			this.mobility[p] = Long.bitCount(othello.getMoves(OthelloBoard.P1))
+					- Long.bitCount(othello.getMoves(OthelloBoard.P2));
+			othello.makeMove(moves[i] / 8, moves[i] % 8);
+		}
+		float result = othello.getCount(OthelloBoard.P1) - othello.getCount(OthelloBoard.P2);
+		for (int i = 0; i < moves.length; i++) {
+			this.targets[offset + i] = result;
+		}
+	}
+
+	/**
+	 * A gradient descent step on the current batch, each phase in parallel.
+	 */
+	void step() {
+		IntStream.range(0, Patterns.PHASES).parallel().forEach(this::step);
+	}
+
+	private void step(int phase) {
+		float[] w = this.weights[phase];
+		float[] gradient = this.gradients[phase];
+		int[] counts = this.counts[phase];
+		double error2 = 0;
+		long count = 0;
+		for (int p = 0; p < this.positions; p++) {
+			if (this.phases[p] != phase)
+				continue;
+			float error = this.predict(w, p) - this.targets[p];
+			error2 += error * error;
+			count++;
+			int base = p * this.instances;
+			for (int i = 0; i < this.instances; i++) {
+				gradient[this.features[base + i]] += error;
+				counts[this.features[base + i]]++;
+			}
+			gradient[Patterns.MOBILITY] += error * this.mobility[p];
+		}
+		if (count == 0)
+			return;
+		// step each weight by its mean gradient over the positions it was in, so
+		// rare patterns learn as fast as common ones, and clear the gradient
+		for (int p = 0; p < this.positions; p++) {
+			if (this.phases[p] != phase)
+				continue;
+			int base = p * this.instances;
+			for (int i = 0; i < this.instances; i++) {
+				int f = this.features[base + i];
+				if (counts[f] > 0) {
+					w[f] -= this.learningRate * gradient[f] / counts[f];
+					gradient[f] = 0;
+					counts[f] = 0;
+				}
+			}
+		}
+		w[Patterns.MOBILITY] -= this.learningRate * gradient[Patterns.MOBILITY] / count;
+		gradient[Patterns.MOBILITY] = 0;
+		this.squaredError[phase] += error2;
+		this.phaseCount[phase] += count;
+	}
+
+	private float predict(float[] w, int p) {
+		float score = w[Patterns.MOBILITY] * this.mobility[p];
+		int base = p * this.instances;
+		for (int i = 0; i < this.instances; i++) {
+			score += w[this.features[base + i]];
+		}
+		return score;
+	}
+
+	/**
+	 *
+	 * @return the root mean squared error of the last epoch, in discs
+	 */
+	public double getError() {
+		double error2 = 0;
+		long count = 0;
+		for (int phase = 0; phase < Patterns.PHASES; phase++) {
+			error2 += this.squaredError[phase];
+			count += this.phaseCount[phase];
+		}
+		return count == 0 ? 0 : Math.sqrt(error2 / count);
+	}
+
+	/**
+	 *
+	 * @return the root mean squared error of the last epoch in phase, in discs
+	 */
+	public double getError(int phase) {
+		return this.phaseCount[phase] == 0 ? 0 : Math.sqrt(this.squaredError[phase] / this.phaseCount[phase]);
+	}
+
+	/**
+	 *
+	 * @return the number of positions in the last epoch
+	 */
+	public long getPositions() {
+		long count = 0;
+		for (long c : this.phaseCount) {
+			count += c;
+		}
+		return count;
+	}
+
+	/**
+	 *
+	 * @return the weights as trained so far, in discs
+	 */
+	public float[][] getWeights() {
+		return this.weights;
+	}
+
+	public PatternWeights getPatternWeights() {
+		return PatternWeights.of(this.weights);
+	}
+
+	public void save(Path file) throws IOException {
+		PatternWeights.save(file, this.weights);
+	}
+
+	/**
+	 * Train weights from a game log.
+	 *
+	 * @param args the log file, the weights file to write and the number of
+	 *             epochs (default 10)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: Trainer log-file weights-file [epochs] [learning-rate]");
+			System.exit(1);
+		}
+		Path log = Paths.get(args[0]), out = Paths.get(args[1]);
+		int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		Trainer trainer = new Trainer();
+		if (args.length > 3)
+			trainer.setLearningRate(Float.parseFloat(args[3]));
+		for (int epoch = 1; epoch <= epochs; epoch++) {
+			long start = System.nanoTime();
+			double error = trainer.epoch(log);
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			StringBuilder phases = new StringBuilder();
+			for (int phase = 0; phase < Patterns.PHASES; phase++) {
+				phases.append(String.format(" %.1f", trainer.getError(phase)));
+			}
+			System.out.printf("epoch %d: rms error %.3f discs, %d positions, %d positions/s, by phase%s%n", epoch,
+					error, trainer.getPositions(), trainer.getPositions() * 1000000000L / elapsed, phases);
+			trainer.save(out);
+		}
+	}
+}
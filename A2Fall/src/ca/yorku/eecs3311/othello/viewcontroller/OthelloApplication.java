@@ -3,7 +3,9 @@ package ca.yorku.eecs3311.othello.viewcontroller;
 import java.io.IOException;
 
 import ca.yorku.eecs3311.othello.model.*;
+import ca.yorku.eecs3311.util.EventChannel;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
@@ -21,13 +23,17 @@ public class OthelloApplication extends Application{
     private Label statusLabel;
     private OthelloController controller; 
     private Label statusBar;
-	
-   
+    private EventChannel.Subscription subscription; // to the events of othello
+
+    // gives the token at a square, of a game or of an event
+    private interface TokenSource {
+        char getToken(int row, int col);
+    }
 
     @Override
     public void start(Stage stage) {
         // Initialize Othello game model
-        othello = new Othello();
+        watch(new Othello());
         
         // Set up the root layout
         BorderPane root = new BorderPane();
@@ -41,8 +47,8 @@ public class OthelloApplication extends Application{
         // Add ComboBox for player selection
         ComboBox<String> player1ComboBox = new ComboBox<>();
         ComboBox<String> player2ComboBox = new ComboBox<>();
-        player1ComboBox.getItems().addAll("Human", "Greedy", "Random");
-        player2ComboBox.getItems().addAll("Human", "Greedy", "Random");
+        player1ComboBox.getItems().addAll("Human", "Greedy", "Random", "AlphaBeta", "MonteCarlo");
+        player2ComboBox.getItems().addAll("Human", "Greedy", "Random", "AlphaBeta", "MonteCarlo");
 
         // Default selection
         player1ComboBox.getSelectionModel().select("Human");
@@ -56,6 +62,35 @@ public class OthelloApplication extends Application{
         stage.setTitle("Othello");
         stage.setScene(scene);
         stage.show();
+        showGame();
+    }
+
+    /**
+     * Show game from now on. Its events are drawn on the JavaFX thread, and any
+     * that arrive while one is being drawn are merged into the latest, which
+     * holds the whole position, so the board never falls behind the game.
+     */
+    private void watch(Othello game) {
+        if (subscription != null)
+            subscription.cancel();
+        othello = game;
+        subscription = game.getEvents().subscribe(this::show, Platform::runLater, 1, (older, newer) -> newer);
+    }
+
+    // Draw the position after event
+    private void show(OthelloEvent event) {
+        int xCount = event.getCount(OthelloBoard.P1), oCount = event.getCount(OthelloBoard.P2);
+        updateBoard(event::getToken);
+        updateStatusLabel(event.getWhosTurn(), xCount, oCount);
+        updateStatus(xCount, oCount);
+    }
+
+    // Draw the current position of othello, before it has published any event
+    private void showGame() {
+        int xCount = othello.getCount(OthelloBoard.P1), oCount = othello.getCount(OthelloBoard.P2);
+        updateBoard(othello::getToken);
+        updateStatusLabel(othello.getWhosTurn(), xCount, oCount);
+        updateStatus(xCount, oCount);
     }
 
 
@@ -101,24 +136,20 @@ public class OthelloApplication extends Application{
         return grid;
     }
 
-    // Handle click events on board buttons
+    // Handle click events on board buttons, the board is redrawn by the event the move publishes
     private void handleCellClick(int row, int col) {
-        if (othello.move(row, col)) {
-            updateBoard(); // Refresh the GUI board
-            updateStatusLabel(); // Update the status label
-            updateStatus();
-        }
+        othello.move(row, col);
     }
 
     // Update the GUI board based on the game state
-    private void updateBoard() {
+    private void updateBoard(TokenSource tokens) {
     	 Image xImage = new Image("file:src/images/black-circle.png");
     	 Image oImage = new Image("file:src/images/shape.png");
    
 
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                char token = othello.getToken(row, col); // Use getToken from Othello
+                char token = tokens.getToken(row, col);
                 Button button = boardButtons[row][col];
 
                 if (token == 'X') {
@@ -140,22 +171,19 @@ public class OthelloApplication extends Application{
 
 
     // Update the status label to show whose turn it is
-    private void updateStatusLabel() {
-        if (othello.isGameOver()) {
-            char winner = othello.getWinner();
-            if (winner == OthelloBoard.EMPTY) {
+    private void updateStatusLabel(char whosTurn, int xCount, int oCount) {
+        if (whosTurn == OthelloBoard.EMPTY) {
+            if (xCount == oCount) {
                 statusLabel.setText("Game Over! It's a tie!");
             } else {
-                statusLabel.setText("Game Over! Winner: Player " + winner);
+                statusLabel.setText("Game Over! Winner: Player " + (xCount > oCount ? OthelloBoard.P1 : OthelloBoard.P2));
             }
         } else {
-            statusLabel.setText("Player " + othello.getWhosTurn() + "'s turn");
+            statusLabel.setText("Player " + whosTurn + "'s turn");
         }
     }
     
-    private void updateStatus() {
-        int xCount = othello.countTokens('X');
-        int oCount = othello.countTokens('O');
+    private void updateStatus(int xCount, int oCount) {
         statusBar.setText("Player X: " + xCount + " | Player O: " + oCount);
     }
 
@@ -187,6 +215,12 @@ public class OthelloApplication extends Application{
             else if (player1 instanceof PlayerHuman && player2 instanceof PlayerGreedy) {
                 controller = new OthelloControllerHumanVSGreedy();
             } 
+            else if (player1 instanceof PlayerHuman && player2 instanceof PlayerAlphaBeta) {
+                controller = new OthelloControllerHumanVSAlphaBeta();
+            } 
+            else if (player1 instanceof PlayerHuman && player2 instanceof PlayerMonteCarlo) {
+                controller = new OthelloControllerHumanVSMonteCarlo();
+            } 
             else if (player1 instanceof PlayerRandom && player2 instanceof PlayerRandom) {
                 controller = new OthelloControllerRandomVSRandom();
             } 
@@ -196,35 +230,17 @@ public class OthelloApplication extends Application{
             
          // Start the game and update the board and status
             startGame(player1, player2);
-            updateBoard();
-            updateStatusLabel();
-            updateStatus();
         });
 
 
         // Restart button logic
-        restartButton.setOnAction(event -> {
-            othello.reset();
-            updateBoard();
-            updateStatusLabel();
-            updateStatus();
-        });
+        restartButton.setOnAction(event -> othello.reset());
 
         // Undo button logic
-        undoButton.setOnAction(event -> {
-            othello.undo();
-            updateBoard();
-            updateStatusLabel();
-            updateStatus();
-        });
+        undoButton.setOnAction(event -> othello.undo());
         
         // redo button logic
-        redoButton.setOnAction(event -> {
-            othello.redo();
-            updateBoard();
-            updateStatusLabel();
-            updateStatus();
-        });
+        redoButton.setOnAction(event -> othello.redo());
         //save button logic
         saveButton.setOnAction(event -> {
             try {
@@ -236,12 +252,10 @@ public class OthelloApplication extends Application{
         //load button logic
         loadButton.setOnAction(event -> {
             try {
-                othello = Othello.loadGame("othello_save.dat");
+                watch(Othello.loadGame("othello_save.dat"));
                 controller = new OthelloControllerHumanVSHuman(); // Reattach controller
-                updateBoard();
-                updateStatusLabel();
-                updateStatus();
-            } catch (IOException | ClassNotFoundException e) {
+                showGame();
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         });
@@ -266,6 +280,10 @@ public class OthelloApplication extends Application{
                 return new PlayerGreedy(othello, player);
             case "Random":
                 return new PlayerRandom(othello, player);
+            case "AlphaBeta":
+                return new PlayerAlphaBeta(othello, player);
+            case "MonteCarlo":
+                return new PlayerMonteCarlo(othello, player);
             default:
                 throw new IllegalArgumentException("Invalid player type");
         }
@@ -273,10 +291,7 @@ public class OthelloApplication extends Application{
     
     // Start the game with the selected players
     private void startGame(Player player1, Player player2) {
-    	othello.reset(); // Reset the game model
-        updateBoard(); // Update the GUI with the initial state
-        updateStatusLabel(); // Update the status label to show who's turn it is
-        updateStatus();
+    	othello.reset(); // Reset the game model, which publishes the initial state to show
         
         // Pass the players to the controller for game logic
         controller.setPlayers(player1, player2); 
@@ -0,0 +1,222 @@
+package ca.yorku.eecs3311.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * A typed alternative to Observable: publishers pass an event describing what
+ * changed, and each subscriber chooses how it is delivered.
+ *
+ * A synchronous subscriber is called on the publisher's thread, as an
+ * Observer is. An asynchronous subscriber has a bounded queue of its own,
+ * drained one event at a time on an Executor, such as a thread pool or the
+ * UI thread, so a slow subscriber does not hold up the publisher. When it is
+ * given a coalesce function, each new event is first offered to it together
+ * with the last event still queued, and the merged event replaces that one,
+ * so a burst of events reaches a slow subscriber as a few. When the queue is
+ * full and the events do not merge, the publisher waits for the subscriber,
+ * so no event is lost. Such a subscriber must not be drained on the thread
+ * that publishes, or the publisher would wait for itself.
+ *
+ * Subscribing and cancelling copy the list of subscribers, so publishing
+ * takes no lock, and with no subscribers publish does nothing at all.
+ * Publishers can check hasSubscribers to skip building events no one will
+ * receive.
+ *
+ * @author Helena
+ *
+ * @param <E> the type of events
+ */
+public class EventChannel<E> {
+
+	/**
+	 * Returned by subscribe, to stop receiving events.
+	 */
+	public interface Subscription {
+		/**
+		 * Stop delivering events. Events queued for an asynchronous subscriber are
+		 * dropped, except one being delivered.
+		 */
+		void cancel();
+	}
+
+	@SuppressWarnings("unchecked")
+	private volatile Subscriber<E>[] subscribers = (Subscriber<E>[]) new Subscriber<?>[0];
+
+	/**
+	 *
+	 * @return whether anyone would receive a published event
+	 */
+	public boolean hasSubscribers() {
+		return this.subscribers.length != 0;
+	}
+
+	/**
+	 * Deliver events to listener on the publisher's thread, as they are
+	 * published.
+	 */
+	public Subscription subscribe(Consumer<? super E> listener) {
+		return this.add(new Subscriber<E>(this, listener));
+	}
+
+	/**
+	 * Deliver events to listener on executor, in the order they were published,
+	 * never two at once.
+	 *
+	 * @param capacity the events that can be waiting, after which publishers
+	 *                 wait for listener
+	 */
+	public Subscription subscribe(Consumer<? super E> listener, Executor executor, int capacity) {
+		return this.subscribe(listener, executor, capacity, null);
+	}
+
+	/**
+	 * Deliver events to listener on executor, in the order they were published,
+	 * never two at once, merging events that arrive while it is busy.
+	 *
+	 * @param capacity the events that can be waiting, after which publishers
+	 *                 wait for listener
+	 * @param coalesce given the last waiting event and a new one, returns the
+	 *                 event to deliver in place of both, or null to deliver both
+	 */
+	public Subscription subscribe(Consumer<? super E> listener, Executor executor, int capacity,
+			BinaryOperator<E> coalesce) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1");
+		return this.add(new AsyncSubscriber<E>(this, listener, executor, capacity, coalesce));
+	}
+
+	/**
+	 * Deliver event to every subscriber.
+	 */
+	public void publish(E event) {
+		for (Subscriber<E> subscriber : this.subscribers) {
+			subscriber.deliver(event);
+		}
+	}
+
+	private synchronized Subscription add(Subscriber<E> subscriber) {
+		Subscriber<E>[] more = Arrays.copyOf(this.subscribers, this.subscribers.length + 1);
+		more[more.length - 1] = subscriber;
+		this.subscribers = more;
+		return subscriber;
+	}
+
+	private synchronized void remove(Subscriber<E> subscriber) {
+		Subscriber<E>[] current = this.subscribers;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == subscriber) {
+				Subscriber<E>[] fewer = Arrays.copyOf(current, current.length - 1);
+				System.arraycopy(current, i + 1, fewer, i, current.length - i - 1);
+				this.subscribers = fewer;
+				return;
+			}
+		}
+	}
+
+	private static class Subscriber<E> implements Subscription {
+		private final EventChannel<E> channel;
+		protected final Consumer<? super E> listener;
+
+		Subscriber(EventChannel<E> channel, Consumer<? super E> listener) {
+			this.channel = channel;
+			this.listener = listener;
+		}
+
+		void deliver(E event) {
+			this.listener.accept(event);
+		}
+
+		@Override
+		public void cancel() {
+			this.channel.remove(this);
+		}
+	}
+
+	private static class AsyncSubscriber<E> extends Subscriber<E> {
+		private final Executor executor;
+		private final int capacity;
+		private final BinaryOperator<E> coalesce;
+		private final Runnable drain = this::drain;
+
+		// guarded by this
+		private final ArrayDeque<E> pending = new ArrayDeque<>();
+		private boolean scheduled = false, cancelled = false;
+
+		AsyncSubscriber(EventChannel<E> channel, Consumer<? super E> listener, Executor executor, int capacity,
+				BinaryOperator<E> coalesce) {
+			super(channel, listener);
+			this.executor = executor;
+			this.capacity = capacity;
+			this.coalesce = coalesce;
+		}
+
+		@Override
+		void deliver(E event) {
+			synchronized (this) {
+				if (this.coalesce != null && !this.pending.isEmpty()) {
+					E merged = this.coalesce.apply(this.pending.peekLast(), event);
+					if (merged != null) {
+						this.pending.pollLast();
+						this.pending.addLast(merged);
+						return; // a drain is already scheduled for the waiting event
+					}
+				}
+				boolean interrupted = false;
+				while (this.pending.size() >= this.capacity && !this.cancelled) {
+					try {
+						this.wait();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted)
+					Thread.currentThread().interrupt();
+				if (this.cancelled)
+					return;
+				this.pending.addLast(event);
+				if (this.scheduled)
+					return;
+				this.scheduled = true;
+			}
+			this.executor.execute(this.drain);
+		}
+
+		/**
+		 * Deliver the waiting events, until there are none.
+		 */
+		private void drain() {
+			while (true) {
+				E event;
+				synchronized (this) {
+					event = this.pending.pollFirst();
+					if (event == null) {
+						this.scheduled = false;
+						return;
+					}
+					this.notifyAll(); // there is room for a waiting publisher
+				}
+				try {
+					this.listener.accept(event);
+				} catch (RuntimeException e) {
+					// report it, and go on to the next event
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
+		}
+
+		@Override
+		public void cancel() {
+			super.cancel();
+			synchronized (this) {
+				this.cancelled = true;
+				this.pending.clear();
+				this.notifyAll();
+			}
+		}
+	}
+}